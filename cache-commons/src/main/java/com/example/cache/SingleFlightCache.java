@@ -0,0 +1,212 @@
+package com.example.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+//Protección contra estampidas: cuando una entrada vence, una sola carga por clave.
+// - En esta instancia: el primer hilo carga y los demás esperan su resultado (CompletableFuture)
+// - Entre réplicas: el que carga toma un lock en Redis (SET NX PX); las otras réplicas esperan a que
+//   el valor aparezca en el cache en vez de ir a MongoDB
+//Solo aplica a @Cacheable(sync = true), que es el que llama a get(key, valueLoader).
+//Si Redis falla o el lock no se libera a tiempo, se carga igual: nunca se bloquea una lectura.
+public class SingleFlightCache implements Cache {
+    private static final Logger log = LoggerFactory.getLogger(SingleFlightCache.class);
+    private static final long POLL_INTERVAL_MS = 50;
+    //Borra el lock solo si sigue siendo nuestro (pudo vencer y tomarlo otra réplica)
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final Cache delegate;
+    //null = solo single-flight local (sin Redis)
+    private final StringRedisTemplate redisTemplate;
+    private final Duration lockTtl;
+    private final Duration waitTimeout;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public SingleFlightCache(Cache delegate, StringRedisTemplate redisTemplate, Duration lockTtl, Duration waitTimeout) {
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.lockTtl = lockTtl;
+        this.waitTimeout = waitTimeout;
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return delegate.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return delegate.get(key, type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = delegate.get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            //Otro hilo de esta instancia ya está cargando la clave
+            return (T) await(running);
+        }
+        try {
+            Object loaded = loadOnce(key, valueLoader);
+            flight.complete(loaded);
+            return (T) loaded;
+        } catch (RuntimeException ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private Object loadOnce(Object key, Callable<?> valueLoader) {
+        if (redisTemplate == null) {
+            return load(key, valueLoader);
+        }
+        String lockKey = "lock:" + getName() + "::" + key;
+        String token = UUID.randomUUID().toString();
+        Boolean acquired;
+        try {
+            acquired = redisTemplate.opsForValue().setIfAbsent(lockKey, token, lockTtl);
+        } catch (RuntimeException ex) {
+            log.warn("Could not take load lock for {}: {}", lockKey, ex.getMessage());
+            return load(key, valueLoader);
+        }
+
+        if (Boolean.TRUE.equals(acquired)) {
+            try {
+                //Otra réplica pudo haber cargado el valor entre nuestro miss y el lock
+                ValueWrapper value = delegate.get(key);
+                return value != null ? value.get() : load(key, valueLoader);
+            } finally {
+                release(lockKey, token);
+            }
+        }
+
+        //Otra réplica está cargando: esperamos a que publique el valor en el cache
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            ValueWrapper value = delegate.get(key);
+            if (value != null) {
+                return value.get();
+            }
+            if (!lockHeld(lockKey)) {
+                //El otro terminó sin dejar valor (falló): cargamos nosotros
+                break;
+            }
+        }
+        return load(key, valueLoader);
+    }
+
+    private Object load(Object key, Callable<?> valueLoader) {
+        Object loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+        if (loaded != null) {
+            delegate.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    private boolean lockHeld(String lockKey) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(lockKey));
+        } catch (RuntimeException ex) {
+            return false;
+        }
+    }
+
+    private void release(String lockKey, String token) {
+        try {
+            redisTemplate.execute(RELEASE, List.of(lockKey), token);
+        } catch (RuntimeException ex) {
+            //Vence solo con el TTL del lock
+            log.warn("Could not release load lock {}: {}", lockKey, ex.getMessage());
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, value);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        return delegate.putIfAbsent(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+}
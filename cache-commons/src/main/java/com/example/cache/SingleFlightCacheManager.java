@@ -0,0 +1,46 @@
+package com.example.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Envuelve los caches indicados en un SingleFlightCache (una sola carga por clave al vencer).
+//Los demás caches se devuelven tal cual.
+public class SingleFlightCacheManager implements CacheManager {
+    private final CacheManager delegate;
+    private final StringRedisTemplate redisTemplate;
+    private final Set<String> singleFlightNames;
+    private final Duration lockTtl;
+    private final Duration lockWaitTimeout;
+    private final Map<String, SingleFlightCache> caches = new ConcurrentHashMap<>();
+
+    public SingleFlightCacheManager(CacheManager delegate, StringRedisTemplate redisTemplate,
+                                    Set<String> singleFlightNames, Duration lockTtl, Duration lockWaitTimeout) {
+        this.delegate = delegate;
+        this.redisTemplate = redisTemplate;
+        this.singleFlightNames = singleFlightNames;
+        this.lockTtl = lockTtl;
+        this.lockWaitTimeout = lockWaitTimeout;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = delegate.getCache(name);
+        if (cache == null || !singleFlightNames.contains(name)) {
+            return cache;
+        }
+        return caches.computeIfAbsent(name, cacheName ->
+                new SingleFlightCache(cache, redisTemplate, lockTtl, lockWaitTimeout));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightCacheTest {
+
+    private ConcurrentMapCache delegate;
+    private SingleFlightCache cache;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new ConcurrentMapCache("allMovies");
+        cache = new SingleFlightCache(delegate, null, Duration.ofSeconds(30), Duration.ofSeconds(10));
+    }
+
+    @Test
+    @DisplayName("Should run the loader once when many threads miss the same key at the same time")
+    void get_ConcurrentMisses_ShouldLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("SimpleKey []", () -> {
+                        loads.incrementAndGet();
+                        Thread.sleep(200);
+                        return "movies";
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertEquals("movies", result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals("movies", delegate.get("SimpleKey []").get());
+    }
+
+    @Test
+    @DisplayName("Should pass the loader failure to every waiter and retry on the next call")
+    void get_LoaderFails_ShouldNotCacheAnything() {
+        assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get("key", () -> { throw new IllegalStateException("Mongo down"); }));
+        assertNull(delegate.get("key"));
+
+        assertEquals("movies", cache.get("key", () -> "movies"));
+    }
+}
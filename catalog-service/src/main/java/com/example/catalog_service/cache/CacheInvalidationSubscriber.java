@@ -0,0 +1,52 @@
+package com.example.catalog_service.cache;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+//Suscripción al canal de invalidación: cuando otra réplica modifica una entrada,
+//TwoLevelCacheManager la borra del L1 de esta instancia.
+//Se inicia en segundo plano una vez que la aplicación arrancó: si Redis no responde,
+//el servicio sigue funcionando y el L1 local se corrige al vencer su TTL.
+@Component
+@Profile("!test")
+public class CacheInvalidationSubscriber {
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationSubscriber.class);
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+    @Autowired
+    private TwoLevelCacheManager cacheManager;
+
+    private RedisMessageListenerContainer container;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        try {
+            container.afterPropertiesSet();
+            container.start();
+        } catch (RuntimeException ex) {
+            log.warn("Could not subscribe to {}: {}", TwoLevelCacheManager.INVALIDATION_CHANNEL, ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void unsubscribe() throws Exception {
+        if (container != null) {
+            container.destroy();
+        }
+    }
+}
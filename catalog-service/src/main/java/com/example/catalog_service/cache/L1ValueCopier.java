@@ -0,0 +1,69 @@
+package com.example.catalog_service.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+//Copias de los valores que guarda el L1 de TwoLevelCache: se copia al guardar y en cada hit, así quien recibe
+//el objeto puede modificarlo sin cambiar el cache (y sin pagar la deserialización del JSON de Redis).
+// - String, números, Boolean y enums son inmutables: se comparten
+// - List, Set y Map se copian elemento por elemento
+// - las clases mutables se copian con el copier registrado para esa clase
+//Un valor que no se sabe copiar no se guarda en el L1 (se sigue leyendo de Redis).
+public class L1ValueCopier {
+    private final Map<Class<?>, UnaryOperator<Object>> copiers = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> L1ValueCopier register(Class<T> type, UnaryOperator<T> copier) {
+        copiers.put(type, value -> copier.apply((T) value));
+        return this;
+    }
+
+    //null si el valor no se puede copiar
+    public Object copy(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum<?>) {
+            return value;
+        }
+        if (value instanceof List<?> list) {
+            return copyAll(list, new ArrayList<>(list.size()));
+        }
+        if (value instanceof Set<?> set) {
+            return copyAll(set, new LinkedHashSet<>());
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object key = copy(entry.getKey());
+                Object entryValue = copy(entry.getValue());
+                if (key == null || (entryValue == null && entry.getValue() != null)) {
+                    return null;
+                }
+                copy.put(key, entryValue);
+            }
+            return copy;
+        }
+        UnaryOperator<Object> copier = copiers.get(value.getClass());
+        return copier != null ? copier.apply(value) : null;
+    }
+
+    private <C extends Collection<Object>> C copyAll(Collection<?> source, C target) {
+        for (Object element : source) {
+            Object copy = copy(element);
+            if (copy == null && element != null) {
+                return null;
+            }
+            target.add(copy);
+        }
+        return target;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.catalog_service.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+//Cache que puede leer y escribir muchas claves en un solo round trip
+public interface MultiGetCache {
+
+    //Solo devuelve las claves encontradas
+    Map<String, Object> getAll(Collection<String> keys);
+
+    void putAll(Map<String, ?> entries);
+}
@@ -0,0 +1,80 @@
+package com.example.catalog_service.cache;
+
+import com.example.catalog_service.models.Catalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+//Cache de "no existe" para findMovieById / findByTitle, con TTL corto (catalog.cache.negative.ttl).
+//Los caches normales no guardan nulls y el not found es una excepción: sin esto cada búsqueda
+//de un id o título inexistente llega a MongoDB.
+//createMovies, el import y los cambios de título borran las entradas afectadas.
+@Component
+public class NegativeLookupCache {
+    public static final String MISSING_MOVIES = "missingMovies";
+    public static final String MISSING_TITLES = "missingTitles";
+    private static final Logger log = LoggerFactory.getLogger(NegativeLookupCache.class);
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    public boolean isMissingMovie(String movieId) {
+        return contains(MISSING_MOVIES, movieId);
+    }
+
+    public void rememberMissingMovie(String movieId) {
+        put(MISSING_MOVIES, movieId);
+    }
+
+    public boolean isMissingTitle(String title) {
+        return contains(MISSING_TITLES, title);
+    }
+
+    public void rememberMissingTitle(String title) {
+        put(MISSING_TITLES, title);
+    }
+
+    //Películas que ahora existen (o cambiaron de título)
+    public void forget(Collection<Catalog> catalogs) {
+        Cache movies = cacheManager.getCache(MISSING_MOVIES);
+        Cache titles = cacheManager.getCache(MISSING_TITLES);
+        try {
+            for (Catalog catalog : catalogs) {
+                if (movies != null && catalog.getMovieId() != null) {
+                    movies.evict(catalog.getMovieId());
+                }
+                if (titles != null && catalog.getTitle() != null) {
+                    titles.evict(catalog.getTitle());
+                }
+            }
+        } catch (RuntimeException ex) {
+            //Si no se pudo borrar, la entrada vence sola con el TTL corto
+            log.warn("Could not clear negative cache entries: {}", ex.getMessage());
+        }
+    }
+
+    private boolean contains(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        try {
+            return cache != null && cache.get(key) != null;
+        } catch (RuntimeException ex) {
+            return false;
+        }
+    }
+
+    private void put(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        try {
+            if (cache != null) {
+                cache.put(key, Boolean.TRUE);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Could not cache missing {} {}: {}", cacheName, key, ex.getMessage());
+        }
+    }
+}
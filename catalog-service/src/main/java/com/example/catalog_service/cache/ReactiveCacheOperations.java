@@ -0,0 +1,62 @@
+package com.example.catalog_service.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+
+//Acceso no bloqueante a las mismas claves que usa RedisCache ("movies::<id>"), con el mismo serializador y TTL:
+//lo que cachea el camino bloqueante lo lee el reactivo y al revés.
+//Las cargas desde MongoDB se escriben con SET NX, como RedisBatchOperations: si mientras tanto un @CachePut
+//(changeScore, changeCatalog) dejó un valor más nuevo, ese es el que queda.
+//Un error de Redis se trata como un miss (el dato sale de MongoDB), igual que si el cache no estuviera.
+public class ReactiveCacheOperations {
+    private static final Logger log = LoggerFactory.getLogger(ReactiveCacheOperations.class);
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final RedisCacheConfiguration cacheConfiguration;
+    //TTL de los caches que no usan el de cacheConfiguration (ej. los de "no existe")
+    private final Map<String, Duration> ttlByCache;
+
+    public ReactiveCacheOperations(ReactiveRedisTemplate<String, Object> redisTemplate,
+                                   RedisCacheConfiguration cacheConfiguration,
+                                   Map<String, Duration> ttlByCache) {
+        this.redisTemplate = redisTemplate;
+        this.cacheConfiguration = cacheConfiguration;
+        this.ttlByCache = ttlByCache;
+    }
+
+    public <T> Mono<T> get(String cacheName, String key, Class<T> type) {
+        return redisTemplate.opsForValue().get(redisKey(cacheName, key))
+                .ofType(type)
+                .onErrorResume(ex -> {
+                    log.debug("Reactive cache get failed on {}: {}", cacheName, ex.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public Mono<Boolean> contains(String cacheName, String key) {
+        return redisTemplate.hasKey(redisKey(cacheName, key))
+                .onErrorReturn(false);
+    }
+
+    //true si se escribió; false si la clave ya tenía un valor (o Redis falló)
+    public Mono<Boolean> putIfAbsent(String cacheName, String key, Object value) {
+        Duration ttl = ttlByCache.getOrDefault(cacheName, cacheConfiguration.getTtlFunction().getTimeToLive(key, value));
+        Mono<Boolean> set = ttl.isZero()
+                ? redisTemplate.opsForValue().setIfAbsent(redisKey(cacheName, key), value)
+                : redisTemplate.opsForValue().setIfAbsent(redisKey(cacheName, key), value, ttl);
+        return set.onErrorResume(ex -> {
+            log.debug("Reactive cache put failed on {}: {}", cacheName, ex.getMessage());
+            return Mono.just(false);
+        });
+    }
+
+    private String redisKey(String cacheName, String key) {
+        return cacheConfiguration.getKeyPrefixFor(cacheName) + key;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.catalog_service.cache;
+
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//Lecturas y escrituras en lote sobre las mismas claves que usa RedisCache ("movies::<id>"),
+//con el mismo serializador y TTL: un MGET para leer y un pipeline de SET para escribir.
+public class RedisBatchOperations {
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCacheConfiguration cacheConfiguration;
+
+    public RedisBatchOperations(StringRedisTemplate redisTemplate, RedisCacheConfiguration cacheConfiguration) {
+        this.redisTemplate = redisTemplate;
+        this.cacheConfiguration = cacheConfiguration;
+    }
+
+    public Map<String, Object> multiGet(String cacheName, List<String> keys) {
+        byte[][] redisKeys = keys.stream()
+                .map(key -> redisKey(cacheName, key))
+                .toArray(byte[][]::new);
+        List<byte[]> values = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.stringCommands().mGet(redisKeys));
+
+        Map<String, Object> found = new HashMap<>();
+        if (values == null) {
+            return found;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] value = values.get(i);
+            if (value != null) {
+                found.put(keys.get(i), cacheConfiguration.getValueSerializationPair().read(ByteBuffer.wrap(value)));
+            }
+        }
+        return found;
+    }
+
+    //SET NX: una carga desde MongoDB no pisa un valor que otra réplica escribió mientras tanto
+    //(por ejemplo el @CachePut de un update). Devuelve las claves que sí se escribieron.
+    public Set<String> putAll(String cacheName, Map<String, ?> entries) {
+        List<String> keys = new ArrayList<>(entries.keySet());
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                Object value = entries.get(key);
+                Duration ttl = cacheConfiguration.getTtlFunction().getTimeToLive(key, value);
+                connection.stringCommands().set(redisKey(cacheName, key), serialize(value),
+                        ttl.isZero() ? Expiration.persistent() : Expiration.from(ttl),
+                        RedisStringCommands.SetOption.ifAbsent());
+            }
+            return null;
+        });
+        Set<String> written = new HashSet<>();
+        for (int i = 0; i < keys.size() && i < results.size(); i++) {
+            if (Boolean.TRUE.equals(results.get(i))) {
+                written.add(keys.get(i));
+            }
+        }
+        return written;
+    }
+
+    private byte[] redisKey(String cacheName, String key) {
+        return (cacheConfiguration.getKeyPrefixFor(cacheName) + key).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] serialize(Object value) {
+        ByteBuffer buffer = cacheConfiguration.getValueSerializationPair().write(value);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
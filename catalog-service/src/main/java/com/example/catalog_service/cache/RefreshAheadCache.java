@@ -0,0 +1,241 @@
+package com.example.catalog_service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+//Refresh-ahead: las entradas cercanas a vencer se recalculan en segundo plano y el lector
+//recibe el valor actual, sin esperar. Usa expiración temprana probabilística (XFetch):
+//se refresca si  ahora - delta * beta * ln(random) >= vencimiento, con delta = lo que tardó la última carga.
+//Cuanto más cerca del vencimiento y más cara la carga, más probable el refresh; con muchos lectores
+//normalmente lo dispara uno solo y bastante antes de que venza.
+//El valor se guarda junto con su vencimiento y costo (CachedValue) para que todas las réplicas lo vean.
+//Solo aplica a @Cacheable(sync = true), que es el que pasa el loader en get(key, valueLoader).
+//Un evict/clear que llega mientras se recalcula una clave invalida ese refresh: su valor se descarta
+//en vez de volver a guardar datos leídos antes del cambio.
+public class RefreshAheadCache implements Cache {
+    private static final Logger log = LoggerFactory.getLogger(RefreshAheadCache.class);
+
+    private final Cache delegate;
+    //TTL de las entradas en Redis
+    private final Duration ttl;
+    private final double beta;
+    //Pool acotado: define cuántos refresh corren a la vez en esta réplica
+    private final Executor refreshExecutor;
+    //Claves con un refresh en curso → false si se invalidaron mientras tanto (evict/clear).
+    //El flag se cambia y se lee con operaciones atómicas del mapa, así el put del refresh no se cruza con un evict
+    private final ConcurrentMap<Object, Boolean> refreshing = new ConcurrentHashMap<>();
+    private final Timer refreshSuccess;
+    private final Timer refreshFailure;
+    private final Counter refreshSkipped;
+
+    public RefreshAheadCache(Cache delegate, Duration ttl, double beta, Executor refreshExecutor, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.ttl = ttl;
+        this.beta = beta;
+        this.refreshExecutor = refreshExecutor;
+        this.refreshSuccess = Timer.builder("cache.refresh")
+                .tag("cache", delegate.getName()).tag("result", "success")
+                .register(meterRegistry);
+        this.refreshFailure = Timer.builder("cache.refresh")
+                .tag("cache", delegate.getName()).tag("result", "failure")
+                .register(meterRegistry);
+        this.refreshSkipped = Counter.builder("cache.refresh.skipped")
+                .tag("cache", delegate.getName())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = delegate.get(key);
+        if (value != null && value.get() instanceof CachedValue cached) {
+            return () -> cached.getValue();
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) {
+            return null;
+        }
+        if (type != null && value.get() != null && !type.isInstance(value.get())) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value.get());
+        }
+        return (T) value.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = delegate.get(key);
+        if (value != null && value.get() instanceof CachedValue cached) {
+            if (shouldRefresh(cached)) {
+                refresh(key, valueLoader);
+            }
+            return (T) cached.getValue();
+        }
+        if (value != null) {
+            //Entrada guardada sin metadatos (put directo): vence normalmente
+            return (T) value.get();
+        }
+        //Miss: el delegate (single-flight) guarda el CachedValue que devuelve load
+        Object loaded = delegate.get(key, () -> load(valueLoader));
+        return (T) (loaded instanceof CachedValue cached ? cached.getValue() : loaded);
+    }
+
+    private boolean shouldRefresh(CachedValue cached) {
+        double random = ThreadLocalRandom.current().nextDouble();
+        //ln(random) es negativo: el término suma tiempo a "ahora"
+        double earlyMillis = -cached.getComputeMillis() * beta * Math.log(random);
+        return System.currentTimeMillis() + earlyMillis >= cached.getExpiresAt();
+    }
+
+    private void refresh(Object key, Callable<?> valueLoader) {
+        if (refreshing.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    CachedValue loaded = load(valueLoader);
+                    refreshing.computeIfPresent(key, (k, valid) -> {
+                        if (valid) {
+                            delegate.put(key, loaded);
+                        } else {
+                            log.debug("Discarding refresh of {}::{}: evicted while loading", getName(), key);
+                        }
+                        return valid;
+                    });
+                    refreshSuccess.record(Duration.ofNanos(System.nanoTime() - start));
+                } catch (Exception ex) {
+                    refreshFailure.record(Duration.ofNanos(System.nanoTime() - start));
+                    //El valor actual sigue sirviendo hasta que venza
+                    log.warn("Could not refresh {}::{} ahead of expiry: {}", getName(), key, ex.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            //Pool lleno: otro lector lo intentará, o vence y se carga normalmente
+            refreshing.remove(key);
+            refreshSkipped.increment();
+        }
+    }
+
+    private CachedValue load(Callable<?> valueLoader) throws Exception {
+        long start = System.currentTimeMillis();
+        Object value = valueLoader.call();
+        long now = System.currentTimeMillis();
+        return new CachedValue(value, now + ttl.toMillis(), now - start);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, wrap(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, wrap(value));
+        if (existing != null && existing.get() instanceof CachedValue cached) {
+            return () -> cached.getValue();
+        }
+        return existing;
+    }
+
+    //Sin costo conocido: vence normalmente, sin refresh anticipado
+    private CachedValue wrap(Object value) {
+        return new CachedValue(value, System.currentTimeMillis() + ttl.toMillis(), 0);
+    }
+
+    //Primero se invalida el refresh en curso y después se borra: si el refresh ya guardó su valor, el evict lo borra;
+    //si no, ya no lo guarda
+    @Override
+    public void evict(Object key) {
+        refreshing.replace(key, Boolean.FALSE);
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        refreshing.replace(key, Boolean.FALSE);
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        refreshing.replaceAll((key, valid) -> Boolean.FALSE);
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        refreshing.replaceAll((key, valid) -> Boolean.FALSE);
+        return delegate.invalidate();
+    }
+
+    //Valor guardado en el cache con los datos que necesita XFetch
+    public static class CachedValue {
+        private Object value;
+        private long expiresAt;
+        private long computeMillis;
+
+        public CachedValue() {
+        }
+
+        public CachedValue(Object value, long expiresAt, long computeMillis) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.computeMillis = computeMillis;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public void setValue(Object value) {
+            this.value = value;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public void setExpiresAt(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        public long getComputeMillis() {
+            return computeMillis;
+        }
+
+        public void setComputeMillis(long computeMillis) {
+            this.computeMillis = computeMillis;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.catalog_service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.BiConsumer;
+
+//Cache de dos niveles:
+// - L1: Caffeine, en el heap de esta instancia (acotado por tamaño y TTL), sin red ni deserialización
+// - L2: Redis, compartido por todas las réplicas
+//Cada escritura o eviction se publica en Redis para que las demás réplicas borren su L1.
+//El L1 guarda una copia del objeto (L1ValueCopier, sin JSON: el JSON es solo para Redis) y cada lectura devuelve
+//otra copia: si quien lo recibe lo modifica (ej. un update que todavía no se guardó), el cache no cambia.
+public class TwoLevelCache implements Cache, MultiGetCache {
+    private final String name;
+    private final Cache l1;
+    private final Cache l2;
+    //MGET / SET en pipeline contra el mismo Redis que usa l2 (null si no está disponible)
+    private final RedisBatchOperations l2Batch;
+    //Avisa a las otras réplicas: (nombre del cache, key) → key null significa "todo el cache"
+    private final BiConsumer<String, String> invalidation;
+    private final L1ValueCopier l1Copier;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+
+    public TwoLevelCache(String name, Cache l1, Cache l2, RedisBatchOperations l2Batch,
+                         BiConsumer<String, String> invalidation, L1ValueCopier l1Copier,
+                         MeterRegistry meterRegistry) {
+        this.name = name;
+        this.l1 = l1;
+        this.l2 = l2;
+        this.l2Batch = l2Batch;
+        this.invalidation = invalidation;
+        this.l1Copier = l1Copier;
+        this.l1Hits = counter(meterRegistry, "l1", "hit");
+        this.l1Misses = counter(meterRegistry, "l1", "miss");
+        this.l2Hits = counter(meterRegistry, "l2", "hit");
+        this.l2Misses = counter(meterRegistry, "l2", "miss");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = l1.get(localKey(key));
+        if (value != null) {
+            l1Hits.increment();
+            return new SimpleValueWrapper(fromLocal(value));
+        }
+        l1Misses.increment();
+
+        value = l2.get(key);
+        if (value != null) {
+            l2Hits.increment();
+            putLocal(localKey(key), value.get());
+        } else {
+            l2Misses.increment();
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) {
+            return null;
+        }
+        if (type != null && value.get() != null && !type.isInstance(value.get())) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value.get());
+        }
+        return (T) value.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        T loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+        put(key, loaded);
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        l2.put(key, value);
+        putLocal(localKey(key), value);
+        invalidation.accept(name, localKey(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        putLocal(localKey(key), existing != null ? existing.get() : value);
+        if (existing == null) {
+            invalidation.accept(name, localKey(key));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        l1.evict(localKey(key));
+        invalidation.accept(name, localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        l1.clear();
+        invalidation.accept(name, null);
+    }
+
+    //Primero el L1; las claves que faltan se piden a Redis con un solo MGET
+    @Override
+    public Map<String, Object> getAll(Collection<String> keys) {
+        Map<String, Object> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String key : keys) {
+            ValueWrapper value = l1.get(key);
+            if (value != null) {
+                l1Hits.increment();
+                found.put(key, fromLocal(value));
+            } else {
+                l1Misses.increment();
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        Map<String, Object> fromL2;
+        if (l2Batch != null) {
+            fromL2 = l2Batch.multiGet(name, missing);
+        } else {
+            fromL2 = new HashMap<>();
+            missing.forEach(key -> {
+                ValueWrapper value = l2.get(key);
+                if (value != null) {
+                    fromL2.put(key, value.get());
+                }
+            });
+        }
+        l2Hits.increment(fromL2.size());
+        l2Misses.increment(missing.size() - fromL2.size());
+        fromL2.forEach(this::putLocal);
+        found.putAll(fromL2);
+        return found;
+    }
+
+    //Carga inicial de entradas que no estaban en cache (no hace falta avisar a otras réplicas).
+    //Solo se escriben las claves que siguen vacías en Redis; las demás las escribió otro mientras
+    //cargábamos y ese valor es el que vale, así que tampoco se copian al L1.
+    @Override
+    public void putAll(Map<String, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (l2Batch != null) {
+            Set<String> written = l2Batch.putAll(name, entries);
+            written.forEach(key -> putLocal(key, entries.get(key)));
+        } else {
+            entries.forEach((key, value) -> {
+                if (l2.putIfAbsent(key, value) == null) {
+                    putLocal(key, value);
+                }
+            });
+        }
+    }
+
+    //Llamados cuando otra réplica avisa de un cambio: solo se toca el L1 de esta instancia
+    void evictLocal(String key) {
+        l1.evict(key);
+    }
+
+    void clearLocal() {
+        l1.clear();
+    }
+
+    //Un valor que no se sabe copiar no queda en el L1 (tampoco una versión anterior de la misma clave)
+    private void putLocal(String key, Object value) {
+        Object copy = l1Copier.copy(value);
+        if (copy != null) {
+            l1.put(key, copy);
+        } else {
+            l1.evict(key);
+        }
+    }
+
+    private Object fromLocal(ValueWrapper value) {
+        return l1Copier.copy(value.get());
+    }
+
+    //Las claves del L1 se guardan como String para poder invalidarlas con el mensaje de Redis
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("cache.tier.gets")
+                .description("Cache lookups per tier (l1 = in-heap, l2 = Redis)")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.catalog_service.cache;
+
+import com.example.cache.SingleFlightCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+//CacheManager que pone un L1 en memoria delante de Redis para los caches indicados (near cache).
+//Los demás caches se usan directamente desde Redis.
+//Los caches en singleFlightNames además cargan una sola vez por clave al vencer (SingleFlightCache)
+//y los de refreshAheadNames se recalculan en segundo plano antes de vencer (RefreshAheadCache).
+//También escucha el canal de invalidación: cuando otra réplica cambia una entrada, se borra del L1 local.
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+    public static final String INVALIDATION_CHANNEL = "catalog:cache:invalidation";
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+    private static final String SEPARATOR = "|";
+    private static final String ALL_KEYS = "*";
+
+    //Identifica a esta réplica para ignorar sus propios mensajes
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheManager redisCacheManager;
+    private final RedisBatchOperations redisBatch;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> nearCacheNames;
+    private final long l1MaxSize;
+    private final Duration l1Ttl;
+    private final Set<String> singleFlightNames;
+    private final Duration lockTtl;
+    private final Duration lockWaitTimeout;
+    private final Map<String, TwoLevelCache> nearCaches = new ConcurrentHashMap<>();
+    //Cómo copiar los objetos que guarda el L1 (ver TwoLevelCache)
+    private final L1ValueCopier l1Copier;
+    private final Map<String, Cache> decoratedCaches = new ConcurrentHashMap<>();
+    private Set<String> refreshAheadNames = Set.of();
+    private Duration refreshAheadTtl;
+    private double refreshAheadBeta;
+    private Executor refreshExecutor;
+
+    public TwoLevelCacheManager(CacheManager redisCacheManager, RedisBatchOperations redisBatch,
+                                StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+                                Set<String> nearCacheNames, long l1MaxSize, Duration l1Ttl,
+                                Set<String> singleFlightNames, Duration lockTtl, Duration lockWaitTimeout,
+                                L1ValueCopier l1Copier) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisBatch = redisBatch;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.nearCacheNames = nearCacheNames;
+        this.l1MaxSize = l1MaxSize;
+        this.l1Ttl = l1Ttl;
+        this.singleFlightNames = singleFlightNames;
+        this.lockTtl = lockTtl;
+        this.lockWaitTimeout = lockWaitTimeout;
+        this.l1Copier = l1Copier;
+    }
+
+    //ttl: el de las entradas en Redis; beta: agresividad de XFetch (1.0 = la del paper, más alto = antes)
+    public void enableRefreshAhead(Set<String> names, Duration ttl, double beta, Executor executor) {
+        this.refreshAheadNames = names;
+        this.refreshAheadTtl = ttl;
+        this.refreshAheadBeta = beta;
+        this.refreshExecutor = executor;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = baseCache(name);
+        if (cache == null || (!singleFlightNames.contains(name) && !refreshAheadNames.contains(name))) {
+            return cache;
+        }
+        return decoratedCaches.computeIfAbsent(name, cacheName -> {
+            Cache decorated = cache;
+            if (singleFlightNames.contains(cacheName)) {
+                decorated = new SingleFlightCache(decorated, redisTemplate, lockTtl, lockWaitTimeout);
+            }
+            if (refreshAheadNames.contains(cacheName)) {
+                decorated = new RefreshAheadCache(decorated, refreshAheadTtl, refreshAheadBeta, refreshExecutor, meterRegistry);
+            }
+            return decorated;
+        });
+    }
+
+    private Cache baseCache(String name) {
+        Cache redisCache = redisCacheManager.getCache(name);
+        if (redisCache == null || !nearCacheNames.contains(name)) {
+            return redisCache;
+        }
+        return nearCaches.computeIfAbsent(name, cacheName ->
+                new TwoLevelCache(cacheName, newLocalCache(cacheName), redisCache, redisBatch, this::publish,
+                        l1Copier, meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    //Mensaje recibido por el canal de invalidación: "<nodeId>|<cache>|<key>"
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoLevelCache cache = nearCaches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (ALL_KEYS.equals(parts[2])) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts[2]);
+        }
+    }
+
+    private void publish(String cacheName, String key) {
+        String body = nodeId + SEPARATOR + cacheName + SEPARATOR + (key == null ? ALL_KEYS : key);
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, body);
+        } catch (RuntimeException ex) {
+            //Si no se puede avisar, las otras réplicas se corrigen solas cuando vence el TTL del L1
+            log.warn("Could not publish cache invalidation for {}: {}", cacheName, ex.getMessage());
+        }
+    }
+
+    private CaffeineCache newLocalCache(String name) {
+        return new CaffeineCache(name, Caffeine.newBuilder()
+                .maximumSize(l1MaxSize)
+                .expireAfterWrite(l1Ttl)
+                .build(), false);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.catalog_service.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//El starter reactivo de MongoDB está en el classpath por /reactive/catalog, pero su auto-configuración crea un
+//segundo MongoClient (otro pool de conexiones y otro monitor del cluster) aunque catalog.reactive.enabled sea false.
+//Con el camino reactivo apagado, esas auto-configuraciones se agregan a spring.autoconfigure.exclude.
+//Corre después de cargar la configuración (también la del config server), así ve el valor final de la propiedad.
+public class ReactiveMongoExclusion implements EnvironmentPostProcessor, Ordered {
+    static final String EXCLUDE = "spring.autoconfigure.exclude";
+    static final List<String> REACTIVE_MONGO = List.of(
+            "org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.mongo.MongoReactiveRepositoriesAutoConfiguration");
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (environment.getProperty("catalog.reactive.enabled", Boolean.class, false)) {
+            return;
+        }
+        //Se suman a las exclusiones que ya hubiera configuradas (como lista o separadas por coma)
+        Set<String> exclusions = new LinkedHashSet<>(Binder.get(environment)
+                .bind(EXCLUDE, Bindable.listOf(String.class))
+                .orElse(List.of()));
+        exclusions.addAll(REACTIVE_MONGO);
+        environment.getPropertySources().addFirst(
+                new MapPropertySource("catalogReactiveMongoExclusion", Map.of(EXCLUDE, String.join(",", exclusions))));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
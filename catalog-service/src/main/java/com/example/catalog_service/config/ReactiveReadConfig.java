@@ -0,0 +1,42 @@
+package com.example.catalog_service.config;
+
+import com.example.catalog_service.cache.NegativeLookupCache;
+import com.example.catalog_service.cache.ReactiveCacheOperations;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Camino de lectura reactivo (/reactive/catalog), opcional: catalog.reactive.enabled=true.
+ * Usa el driver reactivo de MongoDB (ReactiveMongoTemplate, configurado por Spring Boot)
+ * y Lettuce en modo reactivo para Redis, con las mismas claves y serialización que RedisConfig.
+ */
+@Configuration
+@Profile("!test")
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+public class ReactiveReadConfig {
+
+    @Bean
+    public ReactiveCacheOperations reactiveCacheOperations(ReactiveRedisConnectionFactory connectionFactory,
+                                                           RedisCacheConfiguration cacheConfiguration,
+                                                           @Value("${catalog.cache.negative.ttl:30s}") Duration negativeTtl) {
+        RedisSerializationContext<String, Object> serializationContext = RedisSerializationContext
+                .<String, Object>newSerializationContext(StringRedisSerializer.UTF_8)
+                .value(cacheConfiguration.getValueSerializationPair())
+                .build();
+        //Mismos TTL que RedisConfig.cacheManager
+        return new ReactiveCacheOperations(new ReactiveRedisTemplate<>(connectionFactory, serializationContext),
+                cacheConfiguration, Map.of(NegativeLookupCache.MISSING_MOVIES, negativeTtl,
+                        NegativeLookupCache.MISSING_TITLES, negativeTtl));
+    }
+}
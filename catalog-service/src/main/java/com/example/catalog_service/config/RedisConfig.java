@@ -1,16 +1,35 @@
 package com.example.catalog_service.config;
 
+import com.example.catalog_service.cache.L1ValueCopier;
+import com.example.catalog_service.cache.NegativeLookupCache;
+import com.example.catalog_service.cache.RedisBatchOperations;
+import com.example.catalog_service.cache.TwoLevelCacheManager;
+import com.example.catalog_service.index.CatalogIndex;
+import com.example.catalog_service.models.Catalog;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableCaching // Habilita el soporte de caching en Spring Boot
+@Profile("!test")
 public class RedisConfig {
 
     /**
@@ -36,4 +55,50 @@ public class RedisConfig {
                         )
                 );
     }
-}
\ No newline at end of file
+
+    /**
+     * CacheManager de dos niveles: L1 en memoria (Caffeine) delante de Redis (L2)
+     * para los caches más leídos. El resto de los caches van directo a Redis.
+     * Los caches de catalog.cache.single-flight.names se cargan una sola vez al vencer (un lock en Redis por clave)
+     * y los de catalog.cache.refresh-ahead.names se recalculan en segundo plano antes de vencer.
+     */
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             MeterRegistry meterRegistry,
+                                             @Value("${catalog.cache.l1.names:movies,moviesByTitle,allMovies}") Set<String> nearCacheNames,
+                                             @Value("${catalog.cache.l1.max-size:10000}") long l1MaxSize,
+                                             @Value("${catalog.cache.l1.ttl:30s}") Duration l1Ttl,
+                                             @Value("${catalog.cache.single-flight.names:allMovies}") Set<String> singleFlightNames,
+                                             @Value("${catalog.cache.single-flight.lock-ttl:30s}") Duration lockTtl,
+                                             @Value("${catalog.cache.single-flight.wait-timeout:10s}") Duration lockWaitTimeout,
+                                             @Value("${catalog.cache.refresh-ahead.names:allMovies}") Set<String> refreshAheadNames,
+                                             @Value("${catalog.cache.refresh-ahead.beta:1.0}") double refreshAheadBeta,
+                                             @Value("${catalog.cache.refresh-ahead.concurrency:2}") int refreshConcurrency,
+                                             @Value("${catalog.cache.negative.ttl:30s}") Duration negativeTtl) {
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(cacheConfiguration())
+                //Los "no existe" viven poco: si igual quedara uno viejo, se corrige solo en segundos
+                .withCacheConfiguration(NegativeLookupCache.MISSING_MOVIES, cacheConfiguration().entryTtl(negativeTtl))
+                .withCacheConfiguration(NegativeLookupCache.MISSING_TITLES, cacheConfiguration().entryTtl(negativeTtl))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+        RedisBatchOperations redisBatch = new RedisBatchOperations(stringRedisTemplate, cacheConfiguration());
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager, redisBatch, stringRedisTemplate,
+                meterRegistry, nearCacheNames, l1MaxSize, l1Ttl, singleFlightNames, lockTtl, lockWaitTimeout,
+                //Los caches con L1 guardan películas o listas de películas
+                new L1ValueCopier().register(Catalog.class, CatalogIndex::copyOf));
+        cacheManager.enableRefreshAhead(refreshAheadNames, cacheConfiguration().getTtl(), refreshAheadBeta,
+                refreshExecutor(refreshConcurrency));
+        return cacheManager;
+    }
+
+    //Pool para los refresh anticipados: a lo sumo "concurrency" a la vez; si la cola se llena se descartan
+    //(el valor actual sigue sirviendo). No es un bean para no reemplazar el executor de @Async.
+    private static ThreadPoolExecutor refreshExecutor(int concurrency) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cache-refresh-");
+        threadFactory.setDaemon(true);
+        return new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(100), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -1,26 +1,65 @@
 package com.example.catalog_service.controller;
 
+import com.example.catalog_service.dtos.CatalogBatchDTO;
+import com.example.catalog_service.dtos.CatalogChangesDTO;
+import com.example.catalog_service.dtos.CatalogCursorPageDTO;
 import com.example.catalog_service.dtos.CatalogDTO;
+import com.example.catalog_service.dtos.CatalogFacetsDTO;
+import com.example.catalog_service.dtos.CatalogFilter;
+import com.example.catalog_service.dtos.CatalogQueryResultDTO;
+import com.example.catalog_service.dtos.CatalogPageDTO;
 import com.example.catalog_service.dtos.CatalogUpdateDto;
+import com.example.catalog_service.dtos.ImportReportDTO;
 import com.example.catalog_service.dtos.RatingScoreDTO;
 import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.exception.InvalidFieldException;
+import com.example.catalog_service.feed.CatalogChangeFeed;
 import com.example.catalog_service.exception.MovieNotFound;
+import com.example.catalog_service.mapper.CatalogProjection;
 import com.example.catalog_service.models.Catalog;
+import com.example.catalog_service.service.CatalogChangesService;
+import com.example.catalog_service.service.CatalogImportService;
 import com.example.catalog_service.service.CatalogService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/catalog")
 public class CatalogController {
  @Autowired
   private CatalogService catalogService;
+    @Autowired
+    private CatalogImportService catalogImportService;
+    @Autowired
+    private CatalogChangesService catalogChangesService;
+    @Autowired
+    private CatalogChangeFeed catalogChangeFeed;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${catalog.batch.max-ids:500}")
+    private int maxBatchIds;
     @PostMapping("/addMovie")
     public ResponseEntity<List<Catalog>> addMovie(@Valid @RequestBody List<Catalog> catalogs){
         List<Catalog> created = catalogService.createMovies(catalogs);
@@ -28,17 +67,81 @@ public class CatalogController {
     }
 
 
+    //Importación masiva: NDJSON (una película por línea) o CSV con encabezado
+    //movieId,title,genre,releaseYear,description. Devuelve un reporte con los errores por fila.
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public ResponseEntity<ImportReportDTO> importMovies(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                        InputStream body) throws IOException {
+        ImportReportDTO report = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? catalogImportService.importNdjson(body)
+                : catalogImportService.importCsv(body);
+        return ResponseEntity.ok(report);
+    }
+
+    //?fields=movieId,genre,ratingAverage devuelve solo esos campos (ver CatalogProjection)
      @GetMapping("/getAll")
-        public ResponseEntity<List<Catalog>> getAll(){
-         return ResponseEntity.ok(catalogService.findAllMovies());
+        public ResponseEntity<?> getAll(@RequestParam(required = false) String fields){
+         CatalogProjection projection = CatalogProjection.parse(fields);
+         List<Catalog> movies = catalogService.findAllMovies();
+         //La lista completa sale del cache y se recorta al serializar
+         return ResponseEntity.ok(projection == null ? movies : projection.apply(movies));
      }
 
+    //Paginación por cursor: /catalog/getAll?limit=100 y luego ?after=<nextCursor>&limit=100
+    @GetMapping(value = "/getAll", params = "limit")
+    public ResponseEntity<?> getAllPaged(@RequestParam(required = false) String after,
+                                         @RequestParam int limit,
+                                         @RequestParam(required = false) String fields){
+        if (limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        CatalogProjection projection = CatalogProjection.parse(fields);
+        CatalogCursorPageDTO page = catalogService.findMoviesAfter(after, limit, fieldsOf(projection));
+        if (projection == null) {
+            return ResponseEntity.ok(page);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("content", projection.apply(page.getContent()));
+        body.put("nextCursor", page.getNextCursor());
+        return ResponseEntity.ok(body);
+    }
+
+    //Todo el catálogo como NDJSON (una película por línea), leído con un cursor de MongoDB
+    //y escrito a medida que llega: la memoria usada no depende del tamaño de la colección
+    @GetMapping(value = "/getAll/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll(@RequestParam(required = false) String fields){
+        CatalogProjection projection = CatalogProjection.parse(fields);
+        StreamingResponseBody body = out -> {
+            try (Stream<Catalog> movies = catalogService.streamAllMovies(fieldsOf(projection))) {
+                Iterator<Catalog> iterator = movies.iterator();
+                while (iterator.hasNext()) {
+                    Catalog movie = iterator.next();
+                    out.write(objectMapper.writeValueAsBytes(projection == null ? movie : projection.apply(movie)));
+                    out.write('\n');
+                }
+                out.flush();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/id")
     public ResponseEntity<Catalog> getById(@RequestBody RatingScoreDTO dto){
         Catalog catalog = catalogService.findMovieById(dto.getMovieId());
         return ResponseEntity.ok(catalog);
     }
 
+    //Many movies at once: body = ["1L", "2L", ...]
+    @PostMapping("/batch")
+    public ResponseEntity<CatalogBatchDTO> getByIds(@RequestBody List<String> movieIds){
+        if (movieIds.isEmpty() || movieIds.size() > maxBatchIds) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(catalogService.findMoviesByIds(movieIds));
+    }
+
     @PutMapping("/update/{movieId}")
     public ResponseEntity<Catalog> updateMovie(
             @PathVariable String movieId,
@@ -60,34 +163,135 @@ public class CatalogController {
     }
 
 
+    //Delta sync: /catalog/changes?since=0 la primera vez, luego ?since=<version de la respuesta anterior>
+    @GetMapping("/changes")
+    public ResponseEntity<CatalogChangesDTO> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                        @RequestParam(defaultValue = "1000") int limit){
+        if (since < 0 || limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(catalogChangesService.findChanges(since, limit));
+    }
+
+    //Los mismos cambios en vivo (Server-Sent Events). Al reconectar, el cliente manda Last-Event-ID
+    //(o ?since=) con la última version recibida y recibe lo que se perdió.
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@RequestParam(required = false) Long since,
+                                             @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId){
+        Long from = lastEventId != null ? lastEventId : since;
+        if (from != null && from < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        SseEmitter emitter = catalogChangeFeed.subscribe(from);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
     @GetMapping("/byTitle/{title}")
     public ResponseEntity<Catalog> getByTitle(@PathVariable String title){
         Catalog catalog= catalogService.findByTitle(title);
         return ResponseEntity.ok(catalog);
     }
 
+    //Typeahead por título: /catalog/search?q=star wa&limit=10
+    @GetMapping("/search")
+    public ResponseEntity<List<CatalogDTO>> search(@RequestParam String q,
+                                                   @RequestParam(defaultValue = "10") int limit){
+        return ResponseEntity.ok(catalogService.searchByTitle(q, limit));
+    }
+
     @PutMapping("/updateScore")
     public ResponseEntity<?> updateScore(@RequestBody RatingScoreDTO dto){
         Catalog updatedScore= catalogService.changeScore(dto);
         return ResponseEntity.ok(updatedScore);
     }
 
+    //Many scores in one request: one bulk write in MongoDB
+    @PutMapping("/updateScores")
+    public ResponseEntity<Map<String, Object>> updateScores(@RequestBody List<RatingScoreDTO> dtos){
+        int matched = catalogService.changeScores(dtos);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("requested", dtos.size());
+        response.put("matched", matched);
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/getByGenre")
     public ResponseEntity<?> getByGenre(@RequestBody List<Genre> genres){
         List<Catalog> list= catalogService.findByGenre(genres);
         return ResponseEntity.ok(list);
     }
 
+    //Ej: /catalog/genre?genres=ACTION,COMEDY&page=0&size=20&sort=ratingAverage,desc
+    @GetMapping("/genre")
+    public ResponseEntity<?> getByGenrePaged(
+            @RequestParam List<Genre> genres,
+            @RequestParam(required = false) String fields,
+            @PageableDefault(size = 20, sort = "ratingAverage", direction = Sort.Direction.DESC) Pageable pageable) {
+        CatalogProjection projection = CatalogProjection.parse(fields);
+        CatalogPageDTO page = catalogService.findByGenre(genres, pageable);
+        if (projection == null) {
+            return ResponseEntity.ok(page);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("content", projection.apply(page.getContent()));
+        body.put("page", page.getPage());
+        body.put("size", page.getSize());
+        body.put("hasNext", page.isHasNext());
+        return ResponseEntity.ok(body);
+    }
+
+    //Filtros combinados: /catalog/query?genres=ACTION,DRAMA&yearFrom=1990&yearTo=1999&minRating=4
+    //                    &sort=releaseYear,asc&page=0&size=20   (sort: ratingAverage o releaseYear)
+    @GetMapping("/query")
+    public ResponseEntity<CatalogQueryResultDTO> query(
+            CatalogFilter filter,
+            @PageableDefault(size = 20, sort = "ratingAverage", direction = Sort.Direction.DESC) Pageable pageable) {
+        return ResponseEntity.ok(catalogService.queryMovies(filter, pageable));
+    }
+
+    //Conteos por género, década y rango de rating para armar los filtros
+    @GetMapping("/facets")
+    public ResponseEntity<CatalogFacetsDTO> getFacets(){
+        return ResponseEntity.ok(catalogService.findFacets());
+    }
+
     @GetMapping("/getTopThree")
     public ResponseEntity<?> getTopThee(){
         List<Catalog> list= catalogService.findTop3();
         return ResponseEntity.ok(list);
     }
 
+    //Ej: /catalog/top/10 o /catalog/top/10?genre=ACTION
+    @GetMapping("/top/{k}")
+    public ResponseEntity<?> getTop(@PathVariable int k,
+                                    @RequestParam(required = false) Genre genre,
+                                    @RequestParam(required = false) String fields) {
+        if (k < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        CatalogProjection projection = CatalogProjection.parse(fields);
+        List<Catalog> list = genre == null
+                ? catalogService.findTop(k)
+                : catalogService.findTop(genre, k);
+        return ResponseEntity.ok(projection == null ? list : projection.apply(list));
+    }
+
     @GetMapping("/group-by-genre/{genre}")
     public ResponseEntity<Map<Genre, List<CatalogDTO>>> groupByGenre(@PathVariable Genre genre) {
         Map<Genre, List<CatalogDTO>> result = catalogService.groupByGenre(genre);
         return ResponseEntity.ok(result);
     }
 
+    @ExceptionHandler(InvalidFieldException.class)
+    public ResponseEntity<Map<String, String>> invalidField(InvalidFieldException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+
+    private static List<String> fieldsOf(CatalogProjection projection) {
+        return projection == null ? List.of() : projection.getFields();
+    }
 }
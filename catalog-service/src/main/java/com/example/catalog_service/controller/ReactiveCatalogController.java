@@ -0,0 +1,79 @@
+package com.example.catalog_service.controller;
+
+import com.example.catalog_service.dtos.CatalogDTO;
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.models.Catalog;
+import com.example.catalog_service.service.ReactiveCatalogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+//Los GET de /catalog con Mono/Flux (catalog.reactive.enabled=true).
+//Spring MVC los atiende en modo asíncrono: el hilo de Tomcat se libera mientras se espera a MongoDB o Redis,
+//así el pool deja de ser el límite de lecturas concurrentes. Mismas rutas bajo /reactive para comparar los dos caminos.
+@RestController
+@RequestMapping("/reactive/catalog")
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+public class ReactiveCatalogController {
+    @Autowired
+    private ReactiveCatalogService reactiveCatalogService;
+
+    //JSON array, o NDJSON escrito a medida que llega cada película con Accept: application/x-ndjson
+    @GetMapping(value = "/getAll", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Catalog> getAll() {
+        return reactiveCatalogService.findAllMovies();
+    }
+
+    @GetMapping("/id/{movieId}")
+    public Mono<ResponseEntity<Catalog>> getById(@PathVariable String movieId) {
+        return reactiveCatalogService.findMovieById(movieId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/byTitle/{title}")
+    public Mono<ResponseEntity<Catalog>> getByTitle(@PathVariable String title) {
+        return reactiveCatalogService.findByTitle(title)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    //Ej: /reactive/catalog/genre?genres=ACTION,COMEDY&page=0&size=20&sort=ratingAverage,desc
+    @GetMapping(value = "/genre", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<Catalog> getByGenre(
+            @RequestParam List<Genre> genres,
+            @PageableDefault(size = 20, sort = "ratingAverage", direction = Sort.Direction.DESC) Pageable pageable) {
+        return reactiveCatalogService.findByGenre(genres, pageable);
+    }
+
+    @GetMapping("/getTopThree")
+    public Flux<Catalog> getTopThree() {
+        return reactiveCatalogService.findTop(null, 3);
+    }
+
+    @GetMapping("/top/{k}")
+    public ResponseEntity<Flux<Catalog>> getTop(@PathVariable int k,
+                                                @RequestParam(required = false) Genre genre) {
+        if (k < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(reactiveCatalogService.findTop(genre, k));
+    }
+
+    @GetMapping("/group-by-genre/{genre}")
+    public Mono<ResponseEntity<Map<Genre, List<CatalogDTO>>>> groupByGenre(@PathVariable Genre genre) {
+        return reactiveCatalogService.groupByGenre(genre)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+}
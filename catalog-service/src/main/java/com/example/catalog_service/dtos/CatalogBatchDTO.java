@@ -0,0 +1,35 @@
+package com.example.catalog_service.dtos;
+
+import com.example.catalog_service.models.Catalog;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CatalogBatchDTO {
+    //En el mismo orden en que se pidieron los ids (sin los que no existen)
+    private List<Catalog> movies;
+    //Ids pedidos que no existen en el catálogo
+    private List<String> missing;
+
+    public CatalogBatchDTO(List<Catalog> movies, List<String> missing) {
+        this.movies = movies;
+        this.missing = missing;
+    }
+
+    public List<Catalog> getMovies() {
+        return movies;
+    }
+
+    public void setMovies(List<Catalog> movies) {
+        this.movies = movies;
+    }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+
+    public void setMissing(List<String> missing) {
+        this.missing = missing;
+    }
+}
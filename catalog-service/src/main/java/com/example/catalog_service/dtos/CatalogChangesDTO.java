@@ -0,0 +1,57 @@
+package com.example.catalog_service.dtos;
+
+import com.example.catalog_service.models.Catalog;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CatalogChangesDTO {
+    //Películas creadas o modificadas desde ?since=, ordenadas por version
+    private List<Catalog> upserts;
+    //movieIds borrados desde ?since=
+    private List<String> deleted;
+    //Valor a enviar como ?since= en la próxima llamada
+    private long version;
+    //true si se cortó por ?limit=: hay que volver a llamar enseguida con la nueva version
+    private boolean hasMore;
+
+    public CatalogChangesDTO(List<Catalog> upserts, List<String> deleted, long version, boolean hasMore) {
+        this.upserts = upserts;
+        this.deleted = deleted;
+        this.version = version;
+        this.hasMore = hasMore;
+    }
+
+    public List<Catalog> getUpserts() {
+        return upserts;
+    }
+
+    public void setUpserts(List<Catalog> upserts) {
+        this.upserts = upserts;
+    }
+
+    public List<String> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<String> deleted) {
+        this.deleted = deleted;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.catalog_service.dtos;
+
+import com.example.catalog_service.models.Catalog;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CatalogCursorPageDTO {
+    private List<Catalog> content;
+    //movieId a enviar como ?after= para pedir la página siguiente (null si no hay más)
+    private String nextCursor;
+
+    public CatalogCursorPageDTO(List<Catalog> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Catalog> getContent() {
+        return content;
+    }
+
+    public void setContent(List<Catalog> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
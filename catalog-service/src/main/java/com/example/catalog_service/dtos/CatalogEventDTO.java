@@ -0,0 +1,66 @@
+package com.example.catalog_service.dtos;
+
+import com.example.catalog_service.models.Catalog;
+import lombok.Data;
+
+//Un cambio del catálogo enviado por /catalog/stream
+@Data
+public class CatalogEventDTO {
+    public static final String UPSERT = "upsert";
+    public static final String DELETE = "delete";
+
+    //upsert (creación, update o cambio de score) o delete
+    private String type;
+    private String movieId;
+    //Mismo valor que en /catalog/changes; sirve como Last-Event-ID para retomar
+    private Long version;
+    //Documento completo en los upsert, null en los delete
+    private Catalog movie;
+
+    public CatalogEventDTO(String type, String movieId, Long version, Catalog movie) {
+        this.type = type;
+        this.movieId = movieId;
+        this.version = version;
+        this.movie = movie;
+    }
+
+    public static CatalogEventDTO upsert(Catalog movie) {
+        return new CatalogEventDTO(UPSERT, movie.getMovieId(), movie.getVersion(), movie);
+    }
+
+    public static CatalogEventDTO delete(String movieId, Long version) {
+        return new CatalogEventDTO(DELETE, movieId, version, null);
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Catalog getMovie() {
+        return movie;
+    }
+
+    public void setMovie(Catalog movie) {
+        this.movie = movie;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.catalog_service.dtos;
+
+import java.util.List;
+
+//Cambios del catálogo como eventos (upserts y deletes mezclados, cada uno con su version), en orden de version.
+//Los usa /catalog/stream; /catalog/changes los devuelve separados en CatalogChangesDTO
+public class CatalogEventsDTO {
+    private List<CatalogEventDTO> events;
+    //Version segura para retomar: todo lo anterior ya está en events o en páginas previas
+    private long version;
+    private boolean hasMore;
+
+    public CatalogEventsDTO(List<CatalogEventDTO> events, long version, boolean hasMore) {
+        this.events = events;
+        this.version = version;
+        this.hasMore = hasMore;
+    }
+
+    public List<CatalogEventDTO> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<CatalogEventDTO> events) {
+        this.events = events;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.catalog_service.dtos;
+
+import com.example.catalog_service.enums.Genre;
+import lombok.Data;
+
+import java.util.Map;
+
+//Conteos para los filtros del catálogo
+@Data
+public class CatalogFacetsDTO {
+    private long total;
+    private Map<Genre, Long> genres;
+    //Clave: primer año de la década (1990 = 1990-1999)
+    private Map<Integer, Long> decades;
+    //Clave: rango de ratingAverage ("4-5" incluye el 5)
+    private Map<String, Long> ratings;
+
+    public CatalogFacetsDTO(long total, Map<Genre, Long> genres, Map<Integer, Long> decades, Map<String, Long> ratings) {
+        this.total = total;
+        this.genres = genres;
+        this.decades = decades;
+        this.ratings = ratings;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Map<Genre, Long> getGenres() {
+        return genres;
+    }
+
+    public void setGenres(Map<Genre, Long> genres) {
+        this.genres = genres;
+    }
+
+    public Map<Integer, Long> getDecades() {
+        return decades;
+    }
+
+    public void setDecades(Map<Integer, Long> decades) {
+        this.decades = decades;
+    }
+
+    public Map<String, Long> getRatings() {
+        return ratings;
+    }
+
+    public void setRatings(Map<String, Long> ratings) {
+        this.ratings = ratings;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.catalog_service.dtos;
+
+import com.example.catalog_service.enums.Genre;
+import lombok.Data;
+
+import java.util.List;
+
+//Filtros combinados de /catalog/query (todos opcionales; se aplican juntos)
+@Data
+public class CatalogFilter {
+    private List<Genre> genres;
+    private Integer yearFrom;
+    private Integer yearTo;
+    private Double minRating;
+
+    public List<Genre> getGenres() {
+        return genres;
+    }
+
+    public void setGenres(List<Genre> genres) {
+        this.genres = genres;
+    }
+
+    public Integer getYearFrom() {
+        return yearFrom;
+    }
+
+    public void setYearFrom(Integer yearFrom) {
+        this.yearFrom = yearFrom;
+    }
+
+    public Integer getYearTo() {
+        return yearTo;
+    }
+
+    public void setYearTo(Integer yearTo) {
+        this.yearTo = yearTo;
+    }
+
+    public Double getMinRating() {
+        return minRating;
+    }
+
+    public void setMinRating(Double minRating) {
+        this.minRating = minRating;
+    }
+}
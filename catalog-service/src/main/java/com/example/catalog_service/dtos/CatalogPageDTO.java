@@ -0,0 +1,54 @@
+package com.example.catalog_service.dtos;
+
+import com.example.catalog_service.models.Catalog;
+import lombok.Data;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+@Data
+public class CatalogPageDTO {
+    private List<Catalog> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+
+    public CatalogPageDTO(Slice<Catalog> slice) {
+        this.content = slice.getContent();
+        this.page = slice.getNumber();
+        this.size = slice.getSize();
+        this.hasNext = slice.hasNext();
+    }
+
+    public List<Catalog> getContent() {
+        return content;
+    }
+
+    public void setContent(List<Catalog> content) {
+        this.content = content;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
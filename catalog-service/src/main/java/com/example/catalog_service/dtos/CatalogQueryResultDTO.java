@@ -0,0 +1,54 @@
+package com.example.catalog_service.dtos;
+
+import com.example.catalog_service.models.Catalog;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CatalogQueryResultDTO {
+    private List<Catalog> content;
+    //Cantidad total de películas que cumplen los filtros
+    private long total;
+    private int page;
+    private int size;
+
+    public CatalogQueryResultDTO(List<Catalog> content, long total, int page, int size) {
+        this.content = content;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+    }
+
+    public List<Catalog> getContent() {
+        return content;
+    }
+
+    public void setContent(List<Catalog> content) {
+        this.content = content;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.catalog_service.exception;
+
+import java.util.Collection;
+
+public class InvalidFieldException extends RuntimeException {
+    public InvalidFieldException(String field, Collection<String> allowed) {
+        super("Field " + field + " does not exist. Allowed fields: " + allowed);
+    }
+}
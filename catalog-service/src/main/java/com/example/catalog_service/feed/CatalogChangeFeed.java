@@ -0,0 +1,266 @@
+package com.example.catalog_service.feed;
+
+import com.example.catalog_service.dtos.CatalogEventDTO;
+import com.example.catalog_service.dtos.CatalogEventsDTO;
+import com.example.catalog_service.service.CatalogChangesService;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+//Feed de cambios del catálogo para /catalog/stream (Server-Sent Events).
+//Los eventos salen siempre de CatalogChangesService.findEvents, en un solo hilo propio: en orden de version y
+//solo hasta la version segura (sin escrituras en curso por debajo). Así el id de cada evento (= version) sirve
+//como Last-Event-ID: al retomar desde ahí no se pierde ningún cambio que haya terminado de escribirse después.
+//Cuándo se leen:
+// - con un change stream de MongoDB sobre catalog_sequences (requiere replica set): cada reserva o liberación
+//   de versiones despierta al feed, y además se lee cada poll-interval (por reservas vencidas)
+// - si no está disponible (MongoDB standalone), cada poll-interval
+//Los últimos buffer-size eventos quedan en un ring buffer para retomar con Last-Event-ID;
+//si el cliente pide una version más vieja, se pone al día desde MongoDB.
+@Component
+public class CatalogChangeFeed {
+    private static final Logger log = LoggerFactory.getLogger(CatalogChangeFeed.class);
+    private static final String SEQUENCES = "catalog_sequences";
+    private static final int READ_BATCH = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private CatalogChangesService catalogChangesService;
+
+    @Value("${catalog.stream.buffer-size:10000}")
+    private int bufferSize;
+    @Value("${catalog.stream.subscriber-buffer:1000}")
+    private int subscriberBuffer;
+    @Value("${catalog.stream.max-subscribers:1000}")
+    private int maxSubscribers;
+    @Value("${catalog.stream.timeout:30m}")
+    private Duration timeout;
+    @Value("${catalog.stream.poll-interval:1s}")
+    private Duration pollInterval;
+    @Value("${catalog.stream.send-threads:4}")
+    private int sendThreads;
+
+    //Ring buffer y versiones que contiene (para no publicar dos veces el mismo cambio); protegidos por "this"
+    private final Deque<CatalogEventDTO> buffer = new ArrayDeque<>();
+    private final Set<Long> bufferedVersions = new HashSet<>();
+    //Versiones <= bufferFloor pueden no estar en el buffer
+    private long bufferFloor;
+    //Version segura hasta la que ya se publicó todo
+    private long lastVersion;
+
+    private final Set<FeedSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private ExecutorService sendExecutor;
+    private Thread sourceThread;
+    private volatile MongoCursor<ChangeStreamDocument<Document>> changeStream;
+    private volatile boolean running = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        CustomizableThreadFactory sendThreadFactory = new CustomizableThreadFactory("catalog-stream-send-");
+        sendThreadFactory.setDaemon(true);
+        sendExecutor = Executors.newFixedThreadPool(sendThreads, sendThreadFactory);
+        running = true;
+        sourceThread = new Thread(this::runSource, "catalog-change-feed");
+        sourceThread.setDaemon(true);
+        sourceThread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        MongoCursor<ChangeStreamDocument<Document>> cursor = changeStream;
+        if (cursor != null) {
+            cursor.close();
+        }
+        if (sourceThread != null) {
+            sourceThread.interrupt();
+        }
+        subscribers.forEach(subscriber -> subscriber.getEmitter().complete());
+        if (sendExecutor != null) {
+            sendExecutor.shutdownNow();
+        }
+    }
+
+    //null si se alcanzó max-subscribers
+    public SseEmitter subscribe(Long since) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        long from;
+        synchronized (this) {
+            from = since == null ? lastVersion : since;
+        }
+        FeedSubscriber subscriber = new FeedSubscriber(emitter, subscriberBuffer, sendExecutor, from);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(ex -> unsubscribe(subscriber));
+
+        long replayFrom = from;
+        if (since != null && since < floor()) {
+            //Más viejo que el buffer: se pone al día desde MongoDB (acotado a lo que entra en su cola)
+            CatalogEventsDTO missed = catalogChangesService.findEvents(since, subscriberBuffer);
+            if (missed.isHasMore()) {
+                //Demasiado atrasado: que use /catalog/changes y vuelva a conectar con la version que obtenga
+                subscriber.reset("since is too old, use /catalog/changes");
+                return emitter;
+            }
+            //Upserts y deletes intercalados en orden de version, cada uno con su version
+            missed.getEvents().forEach(subscriber::offer);
+            replayFrom = missed.getVersion();
+        }
+        synchronized (this) {
+            for (CatalogEventDTO event : buffer) {
+                if (event.getVersion() != null && event.getVersion() > replayFrom) {
+                    subscriber.offer(event);
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void unsubscribe(FeedSubscriber subscriber) {
+        subscriber.close();
+        subscribers.remove(subscriber);
+    }
+
+    //Mantiene viva la conexión a través de proxies y detecta clientes que ya no están
+    @Scheduled(fixedDelayString = "${catalog.stream.heartbeat:15s}")
+    public void heartbeat() {
+        subscribers.removeIf(FeedSubscriber::isClosed);
+        subscribers.forEach(FeedSubscriber::heartbeat);
+    }
+
+    synchronized void publish(CatalogEventDTO event) {
+        if (event.getVersion() != null && !bufferedVersions.add(event.getVersion())) {
+            return;
+        }
+        buffer.addLast(event);
+        while (buffer.size() > bufferSize) {
+            CatalogEventDTO evicted = buffer.removeFirst();
+            if (evicted.getVersion() != null) {
+                bufferedVersions.remove(evicted.getVersion());
+                bufferFloor = Math.max(bufferFloor, evicted.getVersion());
+            }
+        }
+        for (FeedSubscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    private synchronized long floor() {
+        return bufferFloor;
+    }
+
+    private void runSource() {
+        while (running) {
+            try {
+                long current = catalogChangesService.safeVersion();
+                synchronized (this) {
+                    lastVersion = current;
+                    bufferFloor = current;
+                }
+                break;
+            } catch (DataAccessException ex) {
+                log.debug("Catalog change feed waiting for MongoDB: {}", ex.getMessage());
+                sleep(pollInterval);
+            }
+        }
+        if (running && !watchChangeStream()) {
+            log.info("MongoDB change streams not available, /catalog/stream will poll /catalog/changes every {}", pollInterval);
+            poll();
+        }
+    }
+
+    //false si MongoDB no soporta change streams (standalone) o el stream se cortó.
+    //El contenido de los cambios no se usa: solo indica que la version segura pudo avanzar
+    private boolean watchChangeStream() {
+        try (MongoCursor<ChangeStreamDocument<Document>> cursor = mongoTemplate.getCollection(SEQUENCES)
+                .watch()
+                .maxAwaitTime(pollInterval.toMillis(), TimeUnit.MILLISECONDS)
+                .iterator()) {
+            changeStream = cursor;
+            log.info("Catalog change feed following MongoDB change streams");
+            while (running) {
+                //null después de poll-interval sin cambios: se lee igual, por si venció una reserva
+                cursor.tryNext();
+                publishChanges();
+            }
+            return true;
+        } catch (RuntimeException ex) {
+            if (!running) {
+                return true;
+            }
+            log.warn("Catalog change stream stopped: {}", ex.getMessage());
+            return false;
+        } finally {
+            changeStream = null;
+        }
+    }
+
+    private void poll() {
+        while (running) {
+            publishChanges();
+            sleep(pollInterval);
+        }
+    }
+
+    //Publica todo lo que hay entre la última version publicada y la version segura actual
+    private void publishChanges() {
+        try {
+            long since;
+            synchronized (this) {
+                since = lastVersion;
+            }
+            CatalogEventsDTO changes;
+            do {
+                changes = catalogChangesService.findEvents(since, READ_BATCH);
+                changes.getEvents().forEach(this::publish);
+                since = changes.getVersion();
+                synchronized (this) {
+                    lastVersion = Math.max(lastVersion, since);
+                }
+            } while (changes.isHasMore() && running);
+        } catch (DataAccessException ex) {
+            log.debug("Could not read catalog changes: {}", ex.getMessage());
+        }
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
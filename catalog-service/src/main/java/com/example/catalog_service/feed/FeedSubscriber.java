@@ -0,0 +1,144 @@
+package com.example.catalog_service.feed;
+
+import com.example.catalog_service.dtos.CatalogEventDTO;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//Una conexión de /catalog/stream.
+//Los eventos se encolan sin bloquear al que publica; un pool compartido los escribe (no hay un hilo por conexión).
+//Si la cola se llena (cliente lento), se le manda un evento "reset" con la última version entregada
+//y se cierra la conexión: el cliente reconecta con esa version como Last-Event-ID y se pone al día.
+public class FeedSubscriber {
+    private static final Object HEARTBEAT = new Object();
+
+    private final SseEmitter emitter;
+    private final BlockingQueue<Object> queue;
+    private final Executor sendExecutor;
+    //A lo sumo una tarea de envío por conexión: mantiene el orden de los eventos
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private volatile boolean overflowed = false;
+    private volatile String resetReason = "consumer too slow";
+    private volatile boolean closed = false;
+    private volatile Long lastSentVersion;
+    //Mayor version encolada: los eventos llegan en orden de version, uno igual o menor ya se entregó
+    //(ej. la puesta al día desde MongoDB leyó más adelante de lo que el feed ya publicó)
+    private volatile Long lastQueuedVersion;
+
+    public FeedSubscriber(SseEmitter emitter, int capacity, Executor sendExecutor, Long since) {
+        this.emitter = emitter;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.sendExecutor = sendExecutor;
+        this.lastSentVersion = since;
+        this.lastQueuedVersion = since;
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void offer(CatalogEventDTO event) {
+        if (event.getVersion() != null) {
+            if (lastQueuedVersion != null && event.getVersion() <= lastQueuedVersion) {
+                return;
+            }
+            lastQueuedVersion = event.getVersion();
+        }
+        enqueue(event);
+    }
+
+    public void heartbeat() {
+        //Si ya hay eventos pendientes no hace falta
+        if (queue.isEmpty()) {
+            enqueue(HEARTBEAT);
+        }
+    }
+
+    //Corta la conexión con un "reset" (ej. el cliente pidió una version que ya no se puede reproducir)
+    public void reset(String reason) {
+        resetReason = reason;
+        overflowed = true;
+        queue.clear();
+        scheduleDrain();
+    }
+
+    public void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    private void enqueue(Object item) {
+        if (closed || overflowed) {
+            return;
+        }
+        if (!queue.offer(item)) {
+            overflowed = true;
+            queue.clear();
+        }
+        scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            sendExecutor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            if (overflowed) {
+                sendReset();
+                return;
+            }
+            Object item;
+            while (!closed && (item = queue.poll()) != null) {
+                send(item);
+            }
+        } catch (IOException | IllegalStateException ex) {
+            //El cliente se desconectó
+            close();
+        } finally {
+            draining.set(false);
+        }
+        if (!closed && (overflowed || !queue.isEmpty())) {
+            scheduleDrain();
+        }
+    }
+
+    private void send(Object item) throws IOException {
+        if (item == HEARTBEAT) {
+            emitter.send(SseEmitter.event().comment("keep-alive"));
+            return;
+        }
+        CatalogEventDTO event = (CatalogEventDTO) item;
+        SseEmitter.SseEventBuilder sse = SseEmitter.event()
+                .name(event.getType())
+                .data(event, MediaType.APPLICATION_JSON);
+        if (event.getVersion() != null) {
+            sse.id(String.valueOf(event.getVersion()));
+        }
+        emitter.send(sse);
+        if (event.getVersion() != null) {
+            lastSentVersion = event.getVersion();
+        }
+    }
+
+    private void sendReset() throws IOException {
+        closed = true;
+        emitter.send(SseEmitter.event()
+                .name("reset")
+                .data(Map.of("reason", resetReason, "since", lastSentVersion == null ? 0 : lastSentVersion),
+                        MediaType.APPLICATION_JSON));
+        emitter.complete();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.models.Catalog;
+
+//Índice en memoria del catálogo. CatalogIndexSync lo mantiene al día con cada escritura en MongoDB
+//y lo reconstruye al arrancar, así las lecturas no necesitan consultar Mongo ni Redis.
+public interface CatalogIndex {
+
+    //Agrega la película o reemplaza la versión anterior (mismo movieId)
+    void upsert(Catalog catalog);
+
+    //Cambio de ratingAverage aplicado con un bulk update (sin el documento completo)
+    void updateScore(String movieId, Double ratingAverage);
+
+    void remove(String movieId);
+
+    void clear();
+
+    //Copia para guardar en un índice: si el objeto original cambia después, el índice no se corrompe
+    static Catalog copyOf(Catalog source) {
+        Catalog copy = new Catalog();
+        copy.setMovieId(source.getMovieId());
+        copy.setTitle(source.getTitle());
+        copy.setGenre(source.getGenre());
+        copy.setReleaseYear(source.getReleaseYear());
+        copy.setDescription(source.getDescription());
+        copy.setRatingAverage(source.getRatingAverage());
+        copy.setVersion(source.getVersion());
+        return copy;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.models.Catalog;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+//Recibe los eventos de MongoDB de la colección catalog (save, saveAll, insert, delete...)
+//y los reenvía a CatalogIndexSync para que los índices en memoria no queden desactualizados.
+@Component
+public class CatalogIndexEventListener extends AbstractMongoEventListener<Catalog> {
+    @Autowired
+    private CatalogIndexSync catalogIndexSync;
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Catalog> event) {
+        catalogIndexSync.upsert(event.getSource());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Catalog> event) {
+        //El evento solo trae la query del delete, no el documento borrado
+        Object id = event.getSource().get("_id");
+        if (id instanceof String movieId) {
+            catalogIndexSync.remove(movieId);
+        } else if (id instanceof Document in && in.get("$in") instanceof Collection<?> ids) {
+            ids.forEach(movieId -> catalogIndexSync.remove(String.valueOf(movieId)));
+        } else {
+            //deleteAll() u otra query: no sabemos qué se borró, recargamos todo en segundo plano
+            catalogIndexSync.rebuildInBackground();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.dtos.CatalogChangesDTO;
+import com.example.catalog_service.models.Catalog;
+import com.example.catalog_service.service.CatalogChangesService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+//Mantiene sincronizados todos los CatalogIndex:
+// - al arrancar los carga recorriendo la colección una sola vez
+// - CatalogIndexEventListener le avisa de cada save/insert/delete del repositorio
+// - las escrituras que no generan eventos (bulk updates) llaman a refresh()
+// - las escrituras de otras réplicas se leen cada pocos segundos de /catalog/changes (syncRemoteChanges)
+//Arranque rápido: cada catalog.snapshot.interval y al apagar se guarda el catálogo en un CatalogSnapshot.
+//Al arrancar se carga ese archivo mientras se crea el bean, antes de que la instancia se registre en Eureka
+//(el registro es un SmartLifecycle, arranca después de crear todos los beans) y luego solo se aplican los cambios posteriores.
+//Hasta ponerse al día con MongoDB, los datos del snapshot pueden estar viejos: isLoaded() es true (lecturas que no
+//escriben caches compartidos) pero isReady() sigue en false (Bloom filter y la lista completa que se guarda en Redis).
+@Component
+public class CatalogIndexSync {
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndexSync.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private List<CatalogIndex> indexes;
+
+    private static final int SYNC_BATCH = 1000;
+
+    @Autowired
+    private CatalogChangesService catalogChangesService;
+    @Autowired
+    private CatalogQueryIndex catalogQueryIndex;
+
+    @Value("${catalog.snapshot.enabled:true}")
+    private boolean snapshotEnabled;
+    @Value("${catalog.snapshot.path:${java.io.tmpdir}/catalog-service/catalog.snapshot}")
+    private Path snapshotPath;
+    //Debe ser menor al TTL de los tombstones (30 días): si no, /catalog/changes ya no tiene los deletes que faltan
+    @Value("${catalog.snapshot.max-age:7d}")
+    private Duration snapshotMaxAge;
+    //Primer reintento de una carga completa que falló; se duplica por intento hasta retry-max-backoff
+    @Value("${catalog.index.retry-backoff:2s}")
+    private Duration retryBackoff;
+    @Value("${catalog.index.retry-max-backoff:1m}")
+    private Duration retryMaxBackoff;
+
+    //Los índices tienen el catálogo completo (de MongoDB, o de un snapshot sin verificar si fromSnapshot)
+    private volatile boolean loaded = false;
+    //Cada pedido de rebuild suma uno: una carga que empezó antes de otro pedido no marca los índices como listos
+    private final AtomicLong rebuildRequests = new AtomicLong();
+    private final Object readyLock = new Object();
+    //Los rebuilds pedidos por el listener corren acá, de a uno; los pedidos que llegan mientras hay uno en cola se juntan
+    private final ExecutorService rebuildExecutor =
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("catalog-index-rebuild-"));
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    //Última version de /catalog/changes aplicada a los índices
+    private volatile long syncedVersion = 0;
+    //Los índices se cargaron de un snapshot y todavía no se verificó contra MongoDB
+    private volatile boolean fromSnapshot = false;
+    //Cargas completas seguidas que fallaron (MongoDB no respondía) y cuándo la reintenta syncRemoteChanges
+    //(epoch millis; Long.MAX_VALUE = no hay reintento pendiente: nunca falló o ya hay una carga en curso)
+    private final AtomicInteger failedLoads = new AtomicInteger();
+    private volatile long nextLoadAttempt = Long.MAX_VALUE;
+
+    //Índices completos y al día con MongoDB: se pueden usar en todas las lecturas
+    public boolean isReady() {
+        return loaded && !fromSnapshot;
+    }
+
+    //Índices completos, aunque quizás todavía con los datos del snapshot: solo para lecturas cuyo resultado
+    //no se guarda en un cache compartido (unos segundos viejo en el peor caso, hasta que termina catchUp)
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    //Solo lee un archivo local: no bloquea el arranque esperando a MongoDB
+    @PostConstruct
+    public void loadSnapshot() {
+        if (!snapshotEnabled || !Files.isReadable(snapshotPath)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            CatalogSnapshot snapshot = CatalogSnapshot.read(snapshotPath);
+            Duration age = Duration.ofMillis(System.currentTimeMillis() - snapshot.getWrittenAt());
+            if (age.compareTo(snapshotMaxAge) > 0) {
+                log.info("Ignoring catalog snapshot {}: written {} ago", snapshotPath, age);
+                return;
+            }
+            snapshot.getMovies().forEach(this::upsert);
+            syncedVersion = snapshot.getVersion();
+            fromSnapshot = true;
+            loaded = true;
+            log.info("Catalog indexes loaded from snapshot {} ({} movies, version {}) in {} ms", snapshotPath,
+                    snapshot.getMovies().size(), snapshot.getVersion(), (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Could not read catalog snapshot {}: {}", snapshotPath, ex.getMessage());
+            indexes.forEach(CatalogIndex::clear);
+        }
+    }
+
+    //Si MongoDB no responde lo reintenta syncRemoteChanges: con snapshot el próximo catchUp, sin snapshot un rebuild
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            if (fromSnapshot) {
+                syncRemoteChanges();
+            } else {
+                reload();
+                log.info("Catalog indexes loaded");
+            }
+        } catch (DataAccessException ex) {
+            loadFailed(ex);
+        }
+    }
+
+    //Después de cargar un snapshot: aplica lo que cambió desde que se escribió.
+    //Si MongoDB está detrás del snapshot (base restaurada o vaciada), el snapshot no sirve y se recarga todo
+    private void catchUp() {
+        if (catalogChangesService.safeVersion() < syncedVersion) {
+            log.info("Catalog snapshot is ahead of MongoDB, rebuilding indexes");
+            fromSnapshot = false;
+            rebuild();
+            return;
+        }
+        applyRemoteChanges();
+        //Recién ahora los índices reflejan MongoDB
+        fromSnapshot = false;
+        log.info("Catalog indexes caught up from snapshot to version {}", syncedVersion);
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.snapshot.interval:5m}", initialDelayString = "${catalog.snapshot.interval:5m}")
+    public void writeSnapshot() {
+        //Un snapshot de índices sin verificar no agrega nada nuevo
+        if (!snapshotEnabled || !isReady()) {
+            return;
+        }
+        //La version se toma antes de copiar: lo que cambie mientras tanto se vuelve a aplicar al cargarlo
+        long version = syncedVersion;
+        List<Catalog> movies = catalogQueryIndex.all();
+        try {
+            CatalogSnapshot.write(snapshotPath, version, movies);
+            log.debug("Catalog snapshot written to {} ({} movies, version {})", snapshotPath, movies.size(), version);
+        } catch (IOException ex) {
+            log.warn("Could not write catalog snapshot {}: {}", snapshotPath, ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void writeSnapshotOnShutdown() {
+        rebuildExecutor.shutdownNow();
+        writeSnapshot();
+    }
+
+    //Vacía y vuelve a cargar todos los índices desde MongoDB.
+    //Mientras tanto isReady() es false y las lecturas van a MongoDB (un índice a medio cargar daría resultados incompletos)
+    public void rebuild() {
+        synchronized (readyLock) {
+            loaded = false;
+        }
+        indexes.forEach(CatalogIndex::clear);
+        reload();
+    }
+
+    //Para un delete que no dice qué documentos borró: las lecturas dejan de usar los índices enseguida
+    //y el rebuild (un recorrido de toda la colección) corre en segundo plano, no en el hilo del request
+    public void rebuildInBackground() {
+        synchronized (readyLock) {
+            rebuildRequests.incrementAndGet();
+            loaded = false;
+        }
+        if (!rebuildQueued.compareAndSet(false, true)) {
+            return;
+        }
+        rebuildExecutor.execute(() -> {
+            rebuildQueued.set(false);
+            try {
+                rebuild();
+            } catch (DataAccessException ex) {
+                //Mientras tanto las lecturas siguen yendo a MongoDB
+                loadFailed(ex);
+            }
+        });
+    }
+
+    //Aplica los cambios hechos por otras réplicas (sus saves no generan eventos en esta instancia).
+    //Mientras los índices vienen de un snapshot sin verificar, hace el catchUp: el primer sync que funciona
+    //los deja al día aunque MongoDB no haya respondido al arrancar.
+    //Sin índices porque la última carga completa falló, la vuelve a pedir (en segundo plano) al pasar el backoff.
+    //synchronized: warmUp y el @Scheduled no se cruzan
+    @Scheduled(fixedDelayString = "${catalog.index.sync-interval:2s}", initialDelayString = "${catalog.index.sync-interval:2s}")
+    public synchronized void syncRemoteChanges() {
+        if (!loaded) {
+            if (System.currentTimeMillis() >= nextLoadAttempt) {
+                nextLoadAttempt = Long.MAX_VALUE;
+                log.info("Retrying catalog index load (attempt {})", failedLoads.get() + 1);
+                rebuildInBackground();
+            }
+            return;
+        }
+        try {
+            if (fromSnapshot) {
+                catchUp();
+            } else {
+                applyRemoteChanges();
+            }
+        } catch (DataAccessException ex) {
+            if (loaded) {
+                log.debug("Could not sync catalog indexes: {}", ex.getMessage());
+            } else {
+                //Falló el rebuild de catchUp (snapshot adelantado a MongoDB)
+                loadFailed(ex);
+            }
+        }
+    }
+
+    private void loadFailed(DataAccessException ex) {
+        int failures = failedLoads.incrementAndGet();
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(failures - 1, 20));
+        if (backoff.compareTo(retryMaxBackoff) > 0) {
+            backoff = retryMaxBackoff;
+        }
+        nextLoadAttempt = System.currentTimeMillis() + backoff.toMillis();
+        log.warn("Could not load catalog indexes (attempt {}), retrying in {}: {}", failures, backoff, ex.getMessage());
+    }
+
+    private void applyRemoteChanges() {
+        //La version de /catalog/changes es segura: nada por debajo queda sin aplicar
+        long since = syncedVersion;
+        CatalogChangesDTO changes;
+        do {
+            changes = catalogChangesService.findChanges(since, SYNC_BATCH);
+            changes.getUpserts().forEach(this::upsert);
+            changes.getDeleted().forEach(this::remove);
+            since = changes.getVersion();
+        } while (changes.isHasMore());
+        syncedVersion = Math.max(syncedVersion, since);
+    }
+
+    //Para escrituras que no pasan por el repositorio (no disparan AfterSaveEvent)
+    public void refresh(Collection<Catalog> catalogs) {
+        catalogs.forEach(this::upsert);
+    }
+
+    public void updateScores(Map<String, Double> scoresByMovieId) {
+        scoresByMovieId.forEach((movieId, ratingAverage) ->
+                indexes.forEach(index -> index.updateScore(movieId, ratingAverage)));
+    }
+
+    public void upsert(Catalog catalog) {
+        indexes.forEach(index -> index.upsert(catalog));
+    }
+
+    public void remove(String movieId) {
+        indexes.forEach(index -> index.remove(movieId));
+    }
+
+    private void reload() {
+        long request = rebuildRequests.get();
+        //La version se toma antes de leer: todo lo anterior ya está escrito y lo ve la carga;
+        //lo que cambie durante la carga lo trae el próximo sync
+        long version = catalogChangesService.safeVersion();
+        load();
+        syncedVersion = version;
+        synchronized (readyLock) {
+            //Si se pidió otro rebuild mientras cargaba, los índices pueden tener documentos ya borrados: lo resuelve ese rebuild
+            if (rebuildRequests.get() == request) {
+                loaded = true;
+                failedLoads.set(0);
+            }
+        }
+    }
+
+    private void load() {
+        try (Stream<Catalog> stream = mongoTemplate.stream(new Query(), Catalog.class)) {
+            stream.forEach(this::upsert);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.dtos.CatalogFilter;
+import com.example.catalog_service.dtos.CatalogQueryResultDTO;
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.models.Catalog;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Motor de consultas en memoria para /catalog/query (géneros + rango de años + rating mínimo, ordenado y paginado).
+// - cada película recibe un id entero denso (posición en "movies"); los ids libres se reutilizan
+// - un bitmap comprimido (Roaring) por género y por año de estreno con los ids que lo cumplen
+// - una columna ordenada por rating con todos los ids
+//Un filtro es un OR de bitmaps por criterio y un AND entre criterios; el orden y la página salen de recorrer
+//la columna de rating (o los años en orden) quedándose con los ids del resultado.
+@Component
+public class CatalogQueryIndex implements CatalogIndex {
+    public static final Set<String> SORTABLE = Set.of("ratingAverage", "releaseYear");
+
+    //Roaring no es thread-safe: las consultas comparten el read lock y cada escritura toma el write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> denseIds = new HashMap<>();
+    //id denso -> copia de la película (null = id libre)
+    private final List<Catalog> movies = new ArrayList<>();
+    private final Deque<Integer> freeIds = new ArrayDeque<>();
+    private final RoaringBitmap live = new RoaringBitmap();
+    private final Map<Genre, RoaringBitmap> byGenre = new EnumMap<>(Genre.class);
+    private final NavigableMap<Integer, RoaringBitmap> byYear = new TreeMap<>();
+    //Mayor rating primero; el id desempata. Hay que sacar el id antes de cambiar su rating
+    private final NavigableSet<Integer> byRating = new TreeSet<>((a, b) -> {
+        int compare = Double.compare(rating(b), rating(a));
+        return compare != 0 ? compare : Integer.compare(a, b);
+    });
+
+    public CatalogQueryIndex() {
+        for (Genre genre : Genre.values()) {
+            byGenre.put(genre, new RoaringBitmap());
+        }
+    }
+
+    //Las películas devueltas son copias internas del índice: no modificarlas
+    public CatalogQueryResultDTO query(CatalogFilter filter, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap matches = matching(filter);
+            long total = matches.getLongCardinality();
+            List<Catalog> content = new ArrayList<>(pageable.getPageSize());
+            Iterator<Integer> ids = ordered(matches, pageable.getSort());
+            long skip = pageable.getOffset();
+            while (ids.hasNext() && content.size() < pageable.getPageSize()) {
+                int id = ids.next();
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    content.add(movies.get(id));
+                }
+            }
+            return new CatalogQueryResultDTO(content, total, pageable.getPageNumber(), pageable.getPageSize());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Todo el catálogo indexado (copias), en el orden de los ids densos
+    public List<Catalog> all() {
+        lock.readLock().lock();
+        try {
+            return copies(live);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Catalog> all(Genre genre) {
+        lock.readLock().lock();
+        try {
+            return copies(byGenre.get(genre));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Catalog> copies(RoaringBitmap ids) {
+        List<Catalog> result = new ArrayList<>(ids.getCardinality());
+        ids.forEach((int id) -> result.add(CatalogIndex.copyOf(movies.get(id))));
+        return result;
+    }
+
+    private RoaringBitmap matching(CatalogFilter filter) {
+        RoaringBitmap matches = live.clone();
+        if (filter.getGenres() != null && !filter.getGenres().isEmpty()) {
+            RoaringBitmap genres = new RoaringBitmap();
+            filter.getGenres().forEach(genre -> genres.or(byGenre.get(genre)));
+            matches.and(genres);
+        }
+        if (filter.getYearFrom() != null || filter.getYearTo() != null) {
+            int from = filter.getYearFrom() == null ? Integer.MIN_VALUE : filter.getYearFrom();
+            int to = filter.getYearTo() == null ? Integer.MAX_VALUE : filter.getYearTo();
+            RoaringBitmap years = new RoaringBitmap();
+            if (from <= to) {
+                byYear.subMap(from, true, to, true).values().forEach(years::or);
+            }
+            matches.and(years);
+        }
+        if (filter.getMinRating() != null) {
+            //La columna está ordenada: basta recorrerla hasta el primer rating menor al mínimo
+            RoaringBitmap rated = new RoaringBitmap();
+            for (int id : byRating) {
+                if (rating(id) < filter.getMinRating()) {
+                    break;
+                }
+                rated.add(id);
+            }
+            matches.and(rated);
+        }
+        return matches;
+    }
+
+    //Ids del resultado en el orden pedido (solo se usa la primera propiedad del Sort)
+    private Iterator<Integer> ordered(RoaringBitmap matches, Sort sort) {
+        Sort.Order order = sort.stream().findFirst().orElse(null);
+        if (order == null) {
+            IntIterator ids = matches.getIntIterator();
+            return iterator(ids);
+        }
+        if ("releaseYear".equals(order.getProperty())) {
+            NavigableMap<Integer, RoaringBitmap> years = order.isAscending() ? byYear : byYear.descendingMap();
+            Iterator<RoaringBitmap> perYear = years.values().stream()
+                    .map(bitmap -> RoaringBitmap.and(bitmap, matches))
+                    .iterator();
+            return new Iterator<>() {
+                private IntIterator current = new RoaringBitmap().getIntIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext() && perYear.hasNext()) {
+                        current = perYear.next().getIntIterator();
+                    }
+                    return current.hasNext();
+                }
+
+                @Override
+                public Integer next() {
+                    hasNext();
+                    return current.next();
+                }
+            };
+        }
+        Iterator<Integer> byScore = order.isAscending() ? byRating.descendingIterator() : byRating.iterator();
+        return new Iterator<>() {
+            private Integer next = advance();
+
+            private Integer advance() {
+                while (byScore.hasNext()) {
+                    int id = byScore.next();
+                    if (matches.contains(id)) {
+                        return id;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Integer next() {
+                Integer current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+
+    @Override
+    public void upsert(Catalog catalog) {
+        Catalog snapshot = CatalogIndex.copyOf(catalog);
+        lock.writeLock().lock();
+        try {
+            Integer id = denseIds.get(snapshot.getMovieId());
+            if (id != null) {
+                unlink(id);
+            } else {
+                id = allocate();
+                denseIds.put(snapshot.getMovieId(), id);
+            }
+            movies.set(id, snapshot);
+            link(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateScore(String movieId, Double ratingAverage) {
+        lock.writeLock().lock();
+        try {
+            Integer id = denseIds.get(movieId);
+            if (id == null) {
+                return;
+            }
+            unlink(id);
+            Catalog snapshot = CatalogIndex.copyOf(movies.get(id));
+            snapshot.setRatingAverage(ratingAverage);
+            movies.set(id, snapshot);
+            link(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(String movieId) {
+        lock.writeLock().lock();
+        try {
+            Integer id = denseIds.remove(movieId);
+            if (id == null) {
+                return;
+            }
+            unlink(id);
+            movies.set(id, null);
+            freeIds.push(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            denseIds.clear();
+            movies.clear();
+            freeIds.clear();
+            live.clear();
+            byGenre.values().forEach(RoaringBitmap::clear);
+            byYear.clear();
+            byRating.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int allocate() {
+        if (!freeIds.isEmpty()) {
+            return freeIds.pop();
+        }
+        movies.add(null);
+        return movies.size() - 1;
+    }
+
+    private void link(int id) {
+        Catalog catalog = movies.get(id);
+        live.add(id);
+        if (catalog.getGenre() != null) {
+            byGenre.get(catalog.getGenre()).add(id);
+        }
+        if (catalog.getReleaseYear() != null) {
+            byYear.computeIfAbsent(catalog.getReleaseYear(), year -> new RoaringBitmap()).add(id);
+        }
+        byRating.add(id);
+    }
+
+    //Usa los valores que la película tenía al indexarse (movies.get(id) todavía es la copia vieja)
+    private void unlink(int id) {
+        Catalog catalog = movies.get(id);
+        byRating.remove(id);
+        live.remove(id);
+        if (catalog.getGenre() != null) {
+            byGenre.get(catalog.getGenre()).remove(id);
+        }
+        if (catalog.getReleaseYear() != null) {
+            RoaringBitmap year = byYear.get(catalog.getReleaseYear());
+            year.remove(id);
+            if (year.isEmpty()) {
+                byYear.remove(catalog.getReleaseYear());
+            }
+        }
+    }
+
+    //Sin rating va al final
+    private double rating(int id) {
+        Double rating = movies.get(id).getRatingAverage();
+        return rating == null ? Double.NEGATIVE_INFINITY : rating;
+    }
+
+    private static Iterator<Integer> iterator(IntIterator ids) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return ids.hasNext();
+            }
+
+            @Override
+            public Integer next() {
+                return ids.next();
+            }
+        };
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.models.Catalog;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+//Archivo binario con el catálogo completo, para cargar los índices al arrancar sin leer MongoDB.
+//Formato (big endian):
+//  "CATS" | formato (int) | version de /catalog/changes (long) | escrito en epoch ms (long) | cantidad (int)
+//  por película: movieId, title, genre, description (string) | releaseYear (int) | ratingAverage (double) | version (long)
+//  CRC32 de todo lo anterior (long)
+//Un string es su largo en bytes UTF-8 (int, -1 = null) seguido de los bytes; los números null se guardan como MIN_VALUE / NaN.
+//Se lee con un memory map: no hay copia intermedia ni lecturas de a bloques.
+public final class CatalogSnapshot {
+    private static final int MAGIC = 0x43415453;
+    private static final int FORMAT = 1;
+
+    private final long version;
+    private final long writtenAt;
+    private final List<Catalog> movies;
+
+    private CatalogSnapshot(long version, long writtenAt, List<Catalog> movies) {
+        this.version = version;
+        this.writtenAt = writtenAt;
+        this.movies = movies;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getWrittenAt() {
+        return writtenAt;
+    }
+
+    public List<Catalog> getMovies() {
+        return movies;
+    }
+
+    //Escribe a un archivo temporal y lo renombra: un corte a mitad de escritura no deja un snapshot roto
+    public static void write(Path path, long version, Collection<Catalog> movies) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            CRC32 crc = new CRC32();
+            try (OutputStream file = Files.newOutputStream(tmp);
+                 CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc);
+                 DataOutputStream out = new DataOutputStream(checked)) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeLong(version);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(movies.size());
+                for (Catalog movie : movies) {
+                    writeString(out, movie.getMovieId());
+                    writeString(out, movie.getTitle());
+                    writeString(out, movie.getGenre() == null ? null : movie.getGenre().name());
+                    writeString(out, movie.getDescription());
+                    out.writeInt(movie.getReleaseYear() == null ? Integer.MIN_VALUE : movie.getReleaseYear());
+                    out.writeDouble(movie.getRatingAverage() == null ? Double.NaN : movie.getRatingAverage());
+                    out.writeLong(movie.getVersion() == null ? Long.MIN_VALUE : movie.getVersion());
+                }
+                //El CRC no se incluye a sí mismo
+                out.flush();
+                new DataOutputStream(file).writeLong(crc.getValue());
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    //IOException si el archivo está truncado, corrupto o es de otro formato
+    public static CatalogSnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 36 || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid catalog snapshot size " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ByteBuffer body = buffer.slice(0, (int) size - Long.BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(body.duplicate());
+            if (crc.getValue() != buffer.getLong((int) size - Long.BYTES)) {
+                throw new IOException("Catalog snapshot checksum mismatch");
+            }
+            return decode(body);
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            throw new IOException("Corrupt catalog snapshot", ex);
+        }
+    }
+
+    private static CatalogSnapshot decode(ByteBuffer in) throws IOException {
+        if (in.getInt() != MAGIC || in.getInt() != FORMAT) {
+            throw new IOException("Unknown catalog snapshot format");
+        }
+        long version = in.getLong();
+        long writtenAt = in.getLong();
+        int count = in.getInt();
+        List<Catalog> movies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Catalog movie = new Catalog();
+            movie.setMovieId(readString(in));
+            movie.setTitle(readString(in));
+            String genre = readString(in);
+            movie.setGenre(genre == null ? null : Genre.valueOf(genre));
+            movie.setDescription(readString(in));
+            int releaseYear = in.getInt();
+            movie.setReleaseYear(releaseYear == Integer.MIN_VALUE ? null : releaseYear);
+            double ratingAverage = in.getDouble();
+            movie.setRatingAverage(Double.isNaN(ratingAverage) ? null : ratingAverage);
+            long movieVersion = in.getLong();
+            movie.setVersion(movieVersion == Long.MIN_VALUE ? null : movieVersion);
+            movies.add(movie);
+        }
+        return new CatalogSnapshot(version, writtenAt, movies);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.dtos.CatalogFacetsDTO;
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.models.Catalog;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Conteos por género, década y rango de rating para /catalog/facets.
+//Cada escritura mueve una película de un bucket a otro (resta en el viejo, suma en el nuevo),
+//así leer los conteos no recorre el catálogo.
+@Component
+public class FacetCountIndex implements CatalogIndex {
+    private static final String[] RATING_BUCKETS = {"0-1", "1-2", "2-3", "3-4", "4-5"};
+
+    //Buckets actuales de cada película, para saber de dónde restar cuando cambia
+    private record Buckets(Genre genre, Integer decade, String rating) {
+        Buckets withRating(Double ratingAverage) {
+            return new Buckets(genre, decade, ratingBucket(ratingAverage));
+        }
+    }
+
+    private final Map<String, Buckets> byId = new ConcurrentHashMap<>();
+    private final Map<Genre, Long> genres = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> decades = new ConcurrentHashMap<>();
+    private final Map<String, Long> ratings = new ConcurrentHashMap<>();
+
+    public CatalogFacetsDTO snapshot() {
+        Map<Genre, Long> genreCounts = new EnumMap<>(Genre.class);
+        genreCounts.putAll(genres);
+        Map<String, Long> ratingCounts = new LinkedHashMap<>();
+        for (String bucket : RATING_BUCKETS) {
+            Long count = ratings.get(bucket);
+            if (count != null) {
+                ratingCounts.put(bucket, count);
+            }
+        }
+        return new CatalogFacetsDTO(byId.size(), genreCounts, new TreeMap<>(decades), ratingCounts);
+    }
+
+    @Override
+    public void upsert(Catalog catalog) {
+        Buckets buckets = new Buckets(catalog.getGenre(), decade(catalog.getReleaseYear()),
+                ratingBucket(catalog.getRatingAverage()));
+        //compute bloquea solo esta película: dos cambios del mismo movieId no se mezclan
+        byId.compute(catalog.getMovieId(), (movieId, previous) -> move(previous, buckets));
+    }
+
+    @Override
+    public void updateScore(String movieId, Double ratingAverage) {
+        byId.computeIfPresent(movieId, (id, previous) -> move(previous, previous.withRating(ratingAverage)));
+    }
+
+    @Override
+    public void remove(String movieId) {
+        byId.computeIfPresent(movieId, (id, previous) -> move(previous, null));
+    }
+
+    @Override
+    public void clear() {
+        byId.clear();
+        genres.clear();
+        decades.clear();
+        ratings.clear();
+    }
+
+    private Buckets move(Buckets from, Buckets to) {
+        if (from != null) {
+            add(genres, from.genre(), -1);
+            add(decades, from.decade(), -1);
+            add(ratings, from.rating(), -1);
+        }
+        if (to != null) {
+            add(genres, to.genre(), 1);
+            add(decades, to.decade(), 1);
+            add(ratings, to.rating(), 1);
+        }
+        return to;
+    }
+
+    //Los buckets que quedan en 0 se borran
+    private static <K> void add(Map<K, Long> counts, K key, long delta) {
+        if (key == null) {
+            return;
+        }
+        counts.compute(key, (k, count) -> {
+            long updated = (count == null ? 0 : count) + delta;
+            return updated == 0 ? null : updated;
+        });
+    }
+
+    public static Integer decade(Integer releaseYear) {
+        return releaseYear == null ? null : releaseYear / 10 * 10;
+    }
+
+    public static String ratingBucket(Double ratingAverage) {
+        if (ratingAverage == null) {
+            return null;
+        }
+        int bucket = Math.max(0, Math.min((int) Math.floor(ratingAverage), RATING_BUCKETS.length - 1));
+        return RATING_BUCKETS[bucket];
+    }
+}
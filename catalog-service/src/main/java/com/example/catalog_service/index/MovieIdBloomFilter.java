@@ -0,0 +1,86 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.models.Catalog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Filtro de Bloom con los movieId existentes, en memoria de cada réplica.
+//Si dice que un id no existe, no existía en el último sync: es solo una pista (otra réplica pudo crearlo después),
+//así que findMovieById igual consulta el cache negativo y MongoDB; lo que ahorra es el GET al cache "movies" (reactivo).
+//Si dice que puede existir, se busca normalmente (falsos positivos ~fpp).
+//Los borrados no se pueden quitar de un Bloom: quedan como falsos positivos hasta la próxima recarga.
+@Component
+public class MovieIdBloomFilter implements CatalogIndex {
+    private final int bitCount;
+    private final int hashCount;
+    //Se reemplaza entero en clear(); cada bit se prende con CAS, sin locks
+    private volatile AtomicLongArray words;
+
+    public MovieIdBloomFilter(@Value("${catalog.bloom.expected-ids:1000000}") long expectedIds,
+                              @Value("${catalog.bloom.fpp:0.01}") double fpp) {
+        //Tamaño y cantidad de hashes óptimos para expectedIds elementos con esa tasa de falsos positivos
+        double bits = -expectedIds * Math.log(fpp) / (Math.log(2) * Math.log(2));
+        this.bitCount = (int) Math.max(64, Math.min(Integer.MAX_VALUE - 63, Math.ceil(bits)));
+        this.hashCount = Math.max(1, (int) Math.round(bitCount / (double) expectedIds * Math.log(2)));
+        this.words = new AtomicLongArray((bitCount + 63) / 64);
+    }
+
+    public boolean mightContain(String movieId) {
+        AtomicLongArray current = words;
+        long hash = hash(movieId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((current.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void upsert(Catalog catalog) {
+        AtomicLongArray current = words;
+        long hash = hash(catalog.getMovieId());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            current.getAndUpdate(bit >>> 6, word -> word | mask);
+        }
+    }
+
+    @Override
+    public void updateScore(String movieId, Double ratingAverage) {
+        //El id ya está
+    }
+
+    @Override
+    public void remove(String movieId) {
+        //Un Bloom no permite quitar elementos
+    }
+
+    @Override
+    public void clear() {
+        words = new AtomicLongArray(words.length());
+    }
+
+    //FNV-1a de 64 bits + mezcla final de murmur3: los dos hashes del double hashing salen de cada mitad
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
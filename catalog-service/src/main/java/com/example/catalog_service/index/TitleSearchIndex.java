@@ -0,0 +1,169 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.dtos.CatalogDTO;
+import com.example.catalog_service.models.Catalog;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+//Índice de títulos para el typeahead de /catalog/search.
+//Cada palabra del título (normalizada: minúsculas y sin acentos) se guarda en un mapa ordenado,
+//así buscar un prefijo es un rango del mapa: O(log n + resultados), sin pasar por MongoDB.
+//"star wa" encuentra "Star Wars" y "cafe" encuentra "Café Society".
+@Component
+public class TitleSearchIndex implements CatalogIndex {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{Alnum}]+");
+    //Letra o dígito ASCII en minúscula → ella misma, su mayúscula y las letras latinas con acento que
+    //words() convierte en ella (e → eEéÉèÈ...)
+    private static final Map<Character, String> VARIANTS = variants();
+    //Caracteres que words() deja dentro de una palabra, como clase de regex
+    private static final String WORD_CHARS = "A-Za-z0-9\\p{M}" + String.join("", VARIANTS.values()).replaceAll("[A-Za-z0-9]", "");
+
+    //palabra normalizada → movieIds cuyo título contiene esa palabra
+    private final NavigableMap<String, Set<String>> moviesByWord = new ConcurrentSkipListMap<>();
+    //movieId → película indexada (palabras del título + datos que devuelve la búsqueda)
+    private final Map<String, Entry> byId = new ConcurrentHashMap<>();
+
+    //Películas cuyo título tiene, para cada palabra de la consulta, alguna palabra que empieza igual
+    public List<CatalogDTO> search(String query, int limit) {
+        List<String> terms = words(query);
+        if (terms.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        //Recorremos el rango del término más largo (el más selectivo) y verificamos los demás
+        String driver = terms.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+
+        Set<String> matches = new LinkedHashSet<>();
+        for (Set<String> movieIds : moviesByWord.subMap(driver, true, driver + Character.MAX_VALUE, false).values()) {
+            for (String movieId : movieIds) {
+                Entry entry = byId.get(movieId);
+                if (entry != null && entry.matchesAll(terms)) {
+                    matches.add(movieId);
+                    if (matches.size() == limit) {
+                        return toResults(matches);
+                    }
+                }
+            }
+        }
+        return toResults(matches);
+    }
+
+    @Override
+    public void upsert(Catalog catalog) {
+        Entry entry = new Entry(new CatalogDTO(catalog), words(catalog.getTitle()));
+        byId.compute(catalog.getMovieId(), (movieId, previous) -> {
+            if (previous != null) {
+                unlink(movieId, previous);
+            }
+            entry.words.forEach(word ->
+                    moviesByWord.computeIfAbsent(word, w -> ConcurrentHashMap.newKeySet()).add(movieId));
+            return entry;
+        });
+    }
+
+    @Override
+    public void updateScore(String movieId, Double ratingAverage) {
+        //El rating no forma parte de la búsqueda por título
+    }
+
+    @Override
+    public void remove(String movieId) {
+        byId.computeIfPresent(movieId, (id, previous) -> {
+            unlink(id, previous);
+            return null;
+        });
+    }
+
+    @Override
+    public void clear() {
+        byId.clear();
+        moviesByWord.clear();
+    }
+
+    //Regex de MongoDB equivalente a buscar el término (una palabra de words()) como prefijo de una palabra
+    //del título, con las mismas reglas que el índice: sin importar mayúsculas ni acentos, y las palabras separadas
+    //por todo lo que no sea una letra o dígito ASCII (con o sin acento). Para la búsqueda en MongoDB
+    //mientras el índice carga: "ame" encuentra "Amélie" igual que el índice.
+    public static String prefixRegex(String term) {
+        StringBuilder regex = new StringBuilder("(^|[^").append(WORD_CHARS).append("])");
+        for (char c : term.toCharArray()) {
+            //Un acento puede venir compuesto (é) o como marca aparte (e + ´)
+            regex.append('[').append(VARIANTS.getOrDefault(c, String.valueOf(c))).append("]\\p{M}*");
+        }
+        return regex.toString();
+    }
+
+    //Minúsculas, sin acentos (é → e, ñ → n) y separado en palabras
+    public static List<String> words(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(NON_ALPHANUMERIC.split(normalized.toLowerCase(Locale.ROOT)))
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    private static Map<Character, String> variants() {
+        Map<Character, StringBuilder> variants = new HashMap<>();
+        for (char c = '0'; c <= '9'; c++) {
+            variants.put(c, new StringBuilder().append(c));
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            variants.put(c, new StringBuilder().append(c).append(Character.toUpperCase(c)));
+        }
+        //Latin-1, Latin Extended-A/B y Latin Extended Additional: las letras con acento precompuestas
+        int[][] ranges = {{0x00C0, 0x024F}, {0x1E00, 0x1EFF}};
+        for (int[] range : ranges) {
+            for (int cp = range[0]; cp <= range[1]; cp++) {
+                String base = MARKS.matcher(Normalizer.normalize(Character.toString(cp), Normalizer.Form.NFD)).replaceAll("");
+                if (base.length() == 1 && base.charAt(0) < 128 && Character.isLetterOrDigit(base.charAt(0))) {
+                    variants.get(Character.toLowerCase(base.charAt(0))).appendCodePoint(cp);
+                }
+            }
+        }
+        Map<Character, String> result = new HashMap<>();
+        variants.forEach((c, chars) -> result.put(c, chars.toString()));
+        return Map.copyOf(result);
+    }
+
+    private void unlink(String movieId, Entry entry) {
+        //computeIfPresent borra la palabra del mapa cuando ya no le quedan películas
+        entry.words.forEach(word -> moviesByWord.computeIfPresent(word, (w, ids) -> {
+            ids.remove(movieId);
+            return ids.isEmpty() ? null : ids;
+        }));
+    }
+
+    private List<CatalogDTO> toResults(Set<String> movieIds) {
+        List<CatalogDTO> results = new ArrayList<>(movieIds.size());
+        for (String movieId : movieIds) {
+            Entry entry = byId.get(movieId);
+            if (entry != null) {
+                results.add(entry.movie);
+            }
+        }
+        return results;
+    }
+
+    private record Entry(CatalogDTO movie, List<String> words) {
+        boolean matchesAll(List<String> terms) {
+            return terms.stream().allMatch(term -> words.stream().anyMatch(word -> word.startsWith(term)));
+        }
+    }
+}
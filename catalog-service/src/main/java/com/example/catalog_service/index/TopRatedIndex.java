@@ -0,0 +1,110 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.models.Catalog;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+//Ranking de películas por ratingAverage, general y por género.
+//changeScore actualiza la posición de la película en el lugar (O(log n)),
+//y leer el top K solo recorre los K primeros elementos: no depende del tamaño del catálogo.
+@Component
+public class TopRatedIndex implements CatalogIndex {
+
+    //Mayor rating primero; movieId desempata para que dos películas con el mismo rating no colisionen
+    private static final Comparator<Catalog> BY_RATING_DESC = Comparator
+            .comparing(Catalog::getRatingAverage, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Catalog::getMovieId);
+
+    private final Map<String, Catalog> byId = new ConcurrentHashMap<>();
+    private final NavigableSet<Catalog> overall = new ConcurrentSkipListSet<>(BY_RATING_DESC);
+    private final Map<Genre, NavigableSet<Catalog>> byGenre = new EnumMap<>(Genre.class);
+
+    public TopRatedIndex() {
+        for (Genre genre : Genre.values()) {
+            byGenre.put(genre, new ConcurrentSkipListSet<>(BY_RATING_DESC));
+        }
+    }
+
+    //Las películas devueltas son copias internas del índice: no modificarlas
+    public List<Catalog> top(int k) {
+        return first(overall, k);
+    }
+
+    public List<Catalog> top(Genre genre, int k) {
+        return first(byGenre.get(genre), k);
+    }
+
+    @Override
+    public void upsert(Catalog catalog) {
+        //Guardamos una copia: si el objeto original cambia, el orden del set se rompería
+        Catalog snapshot = CatalogIndex.copyOf(catalog);
+        //compute bloquea solo esta película, así dos updates del mismo movieId no se pisan
+        byId.compute(snapshot.getMovieId(), (movieId, previous) -> {
+            if (previous != null) {
+                unlink(previous);
+            }
+            link(snapshot);
+            return snapshot;
+        });
+    }
+
+    @Override
+    public void updateScore(String movieId, Double ratingAverage) {
+        byId.computeIfPresent(movieId, (id, previous) -> {
+            unlink(previous);
+            Catalog snapshot = CatalogIndex.copyOf(previous);
+            snapshot.setRatingAverage(ratingAverage);
+            link(snapshot);
+            return snapshot;
+        });
+    }
+
+    @Override
+    public void remove(String movieId) {
+        byId.computeIfPresent(movieId, (id, previous) -> {
+            unlink(previous);
+            return null;
+        });
+    }
+
+    @Override
+    public void clear() {
+        byId.clear();
+        overall.clear();
+        byGenre.values().forEach(NavigableSet::clear);
+    }
+
+    private void link(Catalog catalog) {
+        overall.add(catalog);
+        if (catalog.getGenre() != null) {
+            byGenre.get(catalog.getGenre()).add(catalog);
+        }
+    }
+
+    private void unlink(Catalog catalog) {
+        overall.remove(catalog);
+        if (catalog.getGenre() != null) {
+            byGenre.get(catalog.getGenre()).remove(catalog);
+        }
+    }
+
+    private static List<Catalog> first(NavigableSet<Catalog> set, int k) {
+        List<Catalog> result = new ArrayList<>(k);
+        for (Catalog catalog : set) {
+            if (result.size() == k) {
+                break;
+            }
+            result.add(catalog);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.catalog_service.mapper;
+
+import com.example.catalog_service.exception.InvalidFieldException;
+import com.example.catalog_service.models.Catalog;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+//Proyección de campos pedida con ?fields=movieId,genre,ratingAverage
+// - en consultas a MongoDB los campos van al Query.fields().include(...) y solo viajan esos campos
+// - sobre resultados que ya están en cache se aplica al serializar: el cache guarda una sola copia completa
+public final class CatalogProjection {
+    private static final Map<String, Function<Catalog, Object>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("movieId", Catalog::getMovieId);
+        FIELDS.put("title", Catalog::getTitle);
+        FIELDS.put("genre", Catalog::getGenre);
+        FIELDS.put("releaseYear", Catalog::getReleaseYear);
+        FIELDS.put("description", Catalog::getDescription);
+        FIELDS.put("ratingAverage", Catalog::getRatingAverage);
+        FIELDS.put("version", Catalog::getVersion);
+    }
+
+    private final List<String> fields;
+
+    private CatalogProjection(List<String> fields) {
+        this.fields = fields;
+    }
+
+    //null si no se pidió proyección (se devuelven los documentos completos)
+    public static CatalogProjection parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        //movieId siempre va: es el cursor de la paginación y la clave para el cliente
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("movieId");
+        for (String field : fields.split(",")) {
+            field = field.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (!FIELDS.containsKey(field)) {
+                throw new InvalidFieldException(field, FIELDS.keySet());
+            }
+            selected.add(field);
+        }
+        return new CatalogProjection(List.copyOf(selected));
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    //Solo los campos pedidos y sin nulls
+    public Map<String, Object> apply(Catalog catalog) {
+        Map<String, Object> lean = new LinkedHashMap<>();
+        for (String field : fields) {
+            Object value = FIELDS.get(field).apply(catalog);
+            if (value != null) {
+                lean.put(field, value);
+            }
+        }
+        return lean;
+    }
+
+    public List<Map<String, Object>> apply(List<Catalog> catalogs) {
+        List<Map<String, Object>> lean = new ArrayList<>(catalogs.size());
+        catalogs.forEach(catalog -> lean.add(apply(catalog)));
+        return lean;
+    }
+}
@@ -6,10 +6,15 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @Document(collection = "catalog")
+//Indice compuesto genre + ratingAverage: sirve para filtrar por género (prefijo del índice)
+//y para devolver las películas de un género ya ordenadas por rating sin ordenar en memoria
+@CompoundIndex(name = "genre_rating_idx", def = "{'genre': 1, 'ratingAverage': -1}")
 public class Catalog {
     @Id
     private String movieId;
@@ -23,6 +28,10 @@ public class Catalog {
     private String description;
     @NotNull(message = "Rating is required")
     private Double ratingAverage;
+    //Versión del último cambio, creciente en todo el catálogo (la asigna CatalogChangesService).
+    //Permite pedir solo lo que cambió con /catalog/changes?since=
+    @Indexed
+    private Long version;
 
     // --- Getters y Setters ---
 
@@ -73,4 +82,12 @@ public class Catalog {
     public void setRatingAverage(Double ratingAverage) {
         this.ratingAverage = ratingAverage;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,56 @@
+package com.example.catalog_service.models;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+//Registro de una película borrada, para que /catalog/changes pueda informar los deletes.
+//Se guardan 30 días (índice TTL): un consumidor que no sincroniza hace más tiempo debe recargar todo.
+@Data
+@Document(collection = "catalog_tombstones")
+public class CatalogTombstone {
+    @Id
+    private String movieId;
+    @Indexed
+    private Long version;
+    @Indexed(expireAfter = "30d")
+    private Instant deletedAt;
+
+    public CatalogTombstone() {
+    }
+
+    public CatalogTombstone(String movieId, Long version) {
+        this.movieId = movieId;
+        this.version = version;
+        this.deletedAt = Instant.now();
+    }
+
+    // --- Getters y Setters ---
+
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(Instant deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+}
@@ -1,10 +1,23 @@
 package com.example.catalog_service.repository;
 
+import com.example.catalog_service.enums.Genre;
 import com.example.catalog_service.models.Catalog;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface CatalogRepository extends MongoRepository<Catalog,String > {
+public interface CatalogRepository extends MongoRepository<Catalog,String >, CatalogRepositoryCustom {
     Optional<Catalog> findByTitle(String title);
+
+    //Consultas por género resueltas con el índice genre_rating_idx
+    List<Catalog> findByGenre(Genre genre);
+
+    List<Catalog> findByGenreIn(Collection<Genre> genres);
+
+    //Slice en vez de Page: no hace falta el count() de toda la colección
+    Slice<Catalog> findByGenreIn(Collection<Genre> genres, Pageable pageable);
 }
@@ -0,0 +1,47 @@
+package com.example.catalog_service.repository;
+
+import com.example.catalog_service.dtos.CatalogFacetsDTO;
+import com.example.catalog_service.dtos.CatalogFilter;
+import com.example.catalog_service.models.Catalog;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+//Operaciones que Spring Data no puede derivar del nombre del método (implementadas en CatalogRepositoryImpl)
+public interface CatalogRepositoryCustom {
+
+    //Actualiza ratingAverage de muchas películas en un solo bulk write.
+    //Cada película recibe una version consecutiva a partir de firstVersion (en el orden del Map).
+    //Devuelve cuántas películas existían (las desconocidas se ignoran).
+    int updateScores(Map<String, Double> scoresByMovieId, long firstVersion);
+
+    //Paginación por cursor (keyset) sobre _id: cada página es un rango del índice, sin skip.
+    //after null = primera página; fields vacío = documento completo
+    List<Catalog> findPageAfter(String after, int limit, Collection<String> fields);
+
+    //Cursor de MongoDB: los documentos se leen por lotes, nunca toda la colección junta.
+    //Hay que cerrar el Stream al terminar.
+    Stream<Catalog> streamAll(Collection<String> fields);
+
+    //Películas con since < version <= upTo, en orden de version (usa el índice de version)
+    List<Catalog> findChangedSince(long since, long upTo, int limit);
+
+    //Asigna versiones consecutivas desde firstVersion a hasta limit documentos que no tienen
+    //(cargados antes de existir /catalog/changes). Devuelve cuántos actualizó.
+    int assignMissingVersions(long firstVersion, int limit);
+
+    //Conteos por género, década y rango de rating en una sola agregación ($facet)
+    CatalogFacetsDTO countFacets();
+
+    //Filtros combinados (/catalog/query) resueltos por MongoDB, mientras se carga CatalogQueryIndex
+    List<Catalog> findByFilter(CatalogFilter filter, Pageable pageable);
+
+    long countByFilter(CatalogFilter filter);
+
+    //Búsqueda por título en MongoDB, mientras se carga TitleSearchIndex: cada término tiene que ser
+    //el comienzo de alguna palabra del título (sin distinguir mayúsculas ni acentos, como el índice)
+    List<Catalog> findByTitleWords(List<String> terms, int limit);
+}
@@ -0,0 +1,185 @@
+package com.example.catalog_service.repository;
+
+import com.example.catalog_service.dtos.CatalogFacetsDTO;
+import com.example.catalog_service.dtos.CatalogFilter;
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.index.FacetCountIndex;
+import com.example.catalog_service.index.TitleSearchIndex;
+import com.example.catalog_service.models.Catalog;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+public class CatalogRepositoryImpl implements CatalogRepositoryCustom {
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public int updateScores(Map<String, Double> scoresByMovieId, long firstVersion) {
+        if (scoresByMovieId.isEmpty()) {
+            return 0;
+        }
+        //UNORDERED: Mongo puede aplicar los updates en paralelo, todo en un solo round trip
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Catalog.class);
+        long version = firstVersion;
+        for (Map.Entry<String, Double> score : scoresByMovieId.entrySet()) {
+            bulk.updateOne(
+                    Query.query(Criteria.where("_id").is(score.getKey())),
+                    new Update().set("ratingAverage", score.getValue()).set("version", version++));
+        }
+        return bulk.execute().getMatchedCount();
+    }
+
+    @Override
+    public List<Catalog> findPageAfter(String after, int limit, Collection<String> fields) {
+        Query query = after == null ? new Query() : Query.query(Criteria.where("_id").gt(after));
+        query.with(Sort.by("_id")).limit(limit);
+        fields.forEach(field -> query.fields().include(field));
+        return mongoTemplate.find(query, Catalog.class);
+    }
+
+    @Override
+    public Stream<Catalog> streamAll(Collection<String> fields) {
+        Query query = new Query().cursorBatchSize(STREAM_BATCH_SIZE);
+        fields.forEach(field -> query.fields().include(field));
+        return mongoTemplate.stream(query, Catalog.class);
+    }
+
+    @Override
+    public List<Catalog> findChangedSince(long since, long upTo, int limit) {
+        Query query = Query.query(Criteria.where("version").gt(since).lte(upTo))
+                .with(Sort.by("version"))
+                .limit(limit);
+        return mongoTemplate.find(query, Catalog.class);
+    }
+
+    @Override
+    public int assignMissingVersions(long firstVersion, int limit) {
+        Query query = Query.query(Criteria.where("version").exists(false)).limit(limit);
+        query.fields().include("_id");
+        List<Catalog> unversioned = mongoTemplate.find(query, Catalog.class);
+        if (unversioned.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Catalog.class);
+        long version = firstVersion;
+        for (Catalog catalog : unversioned) {
+            bulk.updateOne(
+                    Query.query(Criteria.where("_id").is(catalog.getMovieId()).and("version").exists(false)),
+                    new Update().set("version", version++));
+        }
+        bulk.execute();
+        return unversioned.size();
+    }
+
+    @Override
+    public CatalogFacetsDTO countFacets() {
+        AggregationExpression decade = ArithmeticOperators.Multiply.valueOf(
+                ArithmeticOperators.Floor.floorValueOf(ArithmeticOperators.Divide.valueOf("releaseYear").divideBy(10)))
+                .multiplyBy(10);
+        FacetOperation facets = Aggregation
+                .facet(Aggregation.group("genre").count().as("count")).as("genres")
+                .and(Aggregation.project().and(decade).as("decade"),
+                        Aggregation.group("decade").count().as("count")).as("decades")
+                //Límite superior 6 para que el 5.0 entre en el bucket 4-5
+                .and(Aggregation.bucket("ratingAverage").withBoundaries(0, 1, 2, 3, 4, 6)
+                        .withDefaultBucket("other").andOutputCount().as("count")).as("ratings")
+                .and(Aggregation.count().as("total")).as("total");
+        Document result = mongoTemplate.aggregate(Aggregation.newAggregation(facets), Catalog.class, Document.class)
+                .getUniqueMappedResult();
+
+        Map<Genre, Long> genres = new EnumMap<>(Genre.class);
+        Map<Integer, Long> decades = new TreeMap<>();
+        Map<String, Long> ratings = new LinkedHashMap<>();
+        long total = 0;
+        if (result != null) {
+            for (Document bucket : result.getList("genres", Document.class)) {
+                if (bucket.get("_id") instanceof String genre) {
+                    genres.put(Genre.valueOf(genre), count(bucket));
+                }
+            }
+            for (Document bucket : result.getList("decades", Document.class)) {
+                if (bucket.get("_id") instanceof Number year) {
+                    decades.put(year.intValue(), count(bucket));
+                }
+            }
+            for (Document bucket : result.getList("ratings", Document.class)) {
+                if (bucket.get("_id") instanceof Number lowerBound) {
+                    ratings.put(FacetCountIndex.ratingBucket(lowerBound.doubleValue()), count(bucket));
+                }
+            }
+            List<Document> totals = result.getList("total", Document.class);
+            total = totals.isEmpty() ? 0 : count(totals.get(0), "total");
+        }
+        return new CatalogFacetsDTO(total, genres, decades, ratings);
+    }
+
+    private static long count(Document bucket) {
+        return count(bucket, "count");
+    }
+
+    private static long count(Document bucket, String field) {
+        return ((Number) bucket.get(field)).longValue();
+    }
+
+    @Override
+    public List<Catalog> findByFilter(CatalogFilter filter, Pageable pageable) {
+        Query query = Query.query(filterCriteria(filter)).with(pageable);
+        return mongoTemplate.find(query, Catalog.class);
+    }
+
+    @Override
+    public long countByFilter(CatalogFilter filter) {
+        return mongoTemplate.count(Query.query(filterCriteria(filter)), Catalog.class);
+    }
+
+    @Override
+    public List<Catalog> findByTitleWords(List<String> terms, int limit) {
+        Criteria[] words = terms.stream()
+                .map(term -> Criteria.where("title").regex(TitleSearchIndex.prefixRegex(term)))
+                .toArray(Criteria[]::new);
+        Query query = Query.query(new Criteria().andOperator(words)).limit(limit);
+        return mongoTemplate.find(query, Catalog.class);
+    }
+
+    private static Criteria filterCriteria(CatalogFilter filter) {
+        Criteria criteria = new Criteria();
+        if (filter.getGenres() != null && !filter.getGenres().isEmpty()) {
+            criteria.and("genre").in(filter.getGenres());
+        }
+        if (filter.getYearFrom() != null || filter.getYearTo() != null) {
+            Criteria year = criteria.and("releaseYear");
+            if (filter.getYearFrom() != null) {
+                year.gte(filter.getYearFrom());
+            }
+            if (filter.getYearTo() != null) {
+                year.lte(filter.getYearTo());
+            }
+        }
+        if (filter.getMinRating() != null) {
+            criteria.and("ratingAverage").gte(filter.getMinRating());
+        }
+        return criteria;
+    }
+}
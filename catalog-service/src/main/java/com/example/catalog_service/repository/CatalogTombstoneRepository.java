@@ -0,0 +1,15 @@
+package com.example.catalog_service.repository;
+
+import com.example.catalog_service.models.CatalogTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CatalogTombstoneRepository extends MongoRepository<CatalogTombstone, String> {
+
+    //Tombstones con since < version <= upTo, en orden de version
+    List<CatalogTombstone> findByVersionGreaterThanAndVersionLessThanEqualOrderByVersionAsc(long since, long upTo, Limit limit);
+}
@@ -0,0 +1,227 @@
+package com.example.catalog_service.service;
+
+import com.example.catalog_service.dtos.CatalogChangesDTO;
+import com.example.catalog_service.dtos.CatalogEventDTO;
+import com.example.catalog_service.dtos.CatalogEventsDTO;
+import com.example.catalog_service.models.Catalog;
+import com.example.catalog_service.models.CatalogTombstone;
+import com.example.catalog_service.repository.CatalogRepository;
+import com.example.catalog_service.repository.CatalogTombstoneRepository;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+//Versiones de cambio del catálogo y consulta de cambios para /catalog/changes.
+//La version sale de un contador en MongoDB (colección catalog_sequences, $inc atómico), así que es
+//creciente aunque haya varias réplicas de catalog-service escribiendo.
+//La version se reserva antes de escribir, así que dos escrituras que se cruzan pueden quedar visibles
+//fuera de orden. Por eso cada reserva queda anotada como pendiente en el mismo documento del contador
+//hasta que su escritura termina, y /catalog/changes solo llega hasta safeVersion(): la version más alta
+//por debajo de la cual ya no hay escrituras en curso. Quien retoma desde la version recibida no pierde nada.
+@Service
+public class CatalogChangesService {
+    private static final Logger log = LoggerFactory.getLogger(CatalogChangesService.class);
+    private static final String SEQUENCES = "catalog_sequences";
+    private static final String SEQUENCE_ID = "catalog";
+    private static final int BACKFILL_BATCH = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private CatalogRepository catalogRepository;
+    @Autowired
+    private CatalogTombstoneRepository tombstoneRepository;
+
+    @Value("${catalog.changes.max-limit:1000}")
+    private int maxLimit;
+    //Una reserva más vieja que esto se da por abandonada (la réplica se cayó antes de liberarla)
+    @Value("${catalog.changes.pending-timeout:60s}")
+    private Duration pendingTimeout;
+
+    //Version hasta la cual todas las escrituras ya terminaron (0 si todavía no hay ninguna).
+    //Las reservas vencidas no cuentan: si no, una réplica caída frenaría /catalog/changes para siempre
+    public long safeVersion() {
+        Document sequence = mongoTemplate.findById(SEQUENCE_ID, Document.class, SEQUENCES);
+        if (sequence == null) {
+            return 0;
+        }
+        long safe = ((Number) sequence.get("value")).longValue();
+        Date cutoff = new Date(System.currentTimeMillis() - pendingTimeout.toMillis());
+        for (Document pending : sequence.getList("pending", Document.class, List.of())) {
+            if (pending.getDate("at").after(cutoff)) {
+                safe = Math.min(safe, ((Number) pending.get("first")).longValue() - 1);
+            }
+        }
+        return safe;
+    }
+
+    //Reserva count versiones consecutivas, ejecuta la escritura con la primera y libera la reserva al terminar
+    //(haya funcionado o no: una version sin documento es solo un hueco en la secuencia)
+    public <T> T withVersions(int count, LongFunction<T> write) {
+        long first = reserve(count);
+        long start = System.nanoTime();
+        try {
+            return write.apply(first);
+        } finally {
+            release(first, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    public <T> T withVersion(LongFunction<T> write) {
+        return withVersions(1, write);
+    }
+
+    //Asigna versiones a películas que se van a guardar y las mantiene reservadas mientras se escriben
+    public <T> T stamp(List<Catalog> catalogs, Supplier<T> write) {
+        if (catalogs.isEmpty()) {
+            return write.get();
+        }
+        return withVersions(catalogs.size(), first -> {
+            long version = first;
+            for (Catalog catalog : catalogs) {
+                catalog.setVersion(version++);
+            }
+            return write.get();
+        });
+    }
+
+    public void recordDelete(String movieId) {
+        withVersion(version -> tombstoneRepository.save(new CatalogTombstone(movieId, version)));
+    }
+
+    //Una película que se vuelve a crear deja de estar borrada
+    public void clearTombstones(Collection<String> movieIds) {
+        tombstoneRepository.deleteAllById(movieIds);
+    }
+
+    //Cambios con version > since y <= safeVersion(): películas creadas/modificadas y ids borrados, en orden de version.
+    //La version devuelta es segura para el próximo since: no queda ningún cambio por debajo sin entregar
+    public CatalogChangesDTO findChanges(long since, int limit) {
+        CatalogEventsDTO page = findEvents(since, limit);
+        List<Catalog> upserts = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+        for (CatalogEventDTO event : page.getEvents()) {
+            if (CatalogEventDTO.UPSERT.equals(event.getType())) {
+                upserts.add(event.getMovie());
+            } else {
+                deleted.add(event.getMovieId());
+            }
+        }
+        return new CatalogChangesDTO(upserts, deleted, page.getVersion(), page.isHasMore());
+    }
+
+    //Los mismos cambios como una sola lista de eventos en orden de version (upserts y deletes intercalados)
+    public CatalogEventsDTO findEvents(long since, int limit) {
+        int size = Math.min(limit, maxLimit);
+        //Se calcula antes de leer: todo lo que está por debajo ya estaba escrito
+        long safe = safeVersion();
+        //Pedimos uno de más de cada lado para saber si queda algo después del corte
+        List<Catalog> upserts = catalogRepository.findChangedSince(since, safe, size + 1);
+        List<CatalogTombstone> deletes = tombstoneRepository
+                .findByVersionGreaterThanAndVersionLessThanEqualOrderByVersionAsc(since, safe, Limit.of(size + 1));
+
+        List<CatalogEventDTO> events = new ArrayList<>();
+        long version = since;
+        int u = 0;
+        int d = 0;
+        while (events.size() < size && (u < upserts.size() || d < deletes.size())) {
+            boolean takeUpsert = d >= deletes.size()
+                    || (u < upserts.size() && upserts.get(u).getVersion() < deletes.get(d).getVersion());
+            if (takeUpsert) {
+                Catalog catalog = upserts.get(u++);
+                events.add(CatalogEventDTO.upsert(catalog));
+                version = catalog.getVersion();
+            } else {
+                CatalogTombstone tombstone = deletes.get(d++);
+                events.add(CatalogEventDTO.delete(tombstone.getMovieId(), tombstone.getVersion()));
+                version = tombstone.getVersion();
+            }
+        }
+        boolean hasMore = u < upserts.size() || d < deletes.size();
+        if (!hasMore) {
+            //Entregamos todo lo que hay hasta safe: se puede retomar desde ahí aunque no haya cambios
+            version = Math.max(version, safe);
+        }
+        return new CatalogEventsDTO(events, version, hasMore);
+    }
+
+    //Películas guardadas antes de que existiera version: se les asigna una al arrancar,
+    //en segundo plano para no bloquear el inicio
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillVersions() {
+        try {
+            if (!mongoTemplate.exists(Query.query(Criteria.where("version").exists(false)), Catalog.class)) {
+                return;
+            }
+            long assigned = 0;
+            int updated;
+            do {
+                updated = withVersions(BACKFILL_BATCH, first -> catalogRepository.assignMissingVersions(first, BACKFILL_BATCH));
+                assigned += updated;
+            } while (updated == BACKFILL_BATCH);
+            if (assigned > 0) {
+                log.info("Assigned change versions to {} catalog documents", assigned);
+            }
+        } catch (DataAccessException ex) {
+            log.warn("Could not backfill catalog versions: {}", ex.getMessage());
+        }
+    }
+
+    //Un solo update atómico (pipeline): suma count al contador y anota la reserva como pendiente,
+    //descartando de paso las reservas vencidas
+    private long reserve(int count) {
+        Document value = new Document("$ifNull", List.of("$value", 0L));
+        Document cutoff = new Document("$subtract", List.of("$$NOW", pendingTimeout.toMillis()));
+        Document pending = new Document("$concatArrays", List.of(
+                new Document("$filter", new Document("input", new Document("$ifNull", List.of("$pending", List.of())))
+                        .append("cond", new Document("$gt", List.of("$$this.at", cutoff)))),
+                List.of(new Document("first", new Document("$add", List.of(value, 1L))).append("at", "$$NOW"))));
+        List<Document> pipeline = List.of(
+                new Document("$set", new Document("pending", pending)),
+                new Document("$set", new Document("value", new Document("$add", List.of(value, (long) count)))));
+
+        Document sequence = mongoTemplate.execute(SEQUENCES, collection -> collection.findOneAndUpdate(
+                Filters.eq("_id", SEQUENCE_ID), pipeline,
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER)));
+        long last = ((Number) sequence.get("value")).longValue();
+        return last - count + 1;
+    }
+
+    private void release(long first, Duration elapsed) {
+        if (elapsed.compareTo(pendingTimeout) > 0) {
+            log.warn("Catalog write with version {} took {} (pending-timeout {}): /catalog/changes may have skipped it",
+                    first, elapsed, pendingTimeout);
+        }
+        try {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(SEQUENCE_ID)),
+                    new Update().pull("pending", new Document("first", first)), SEQUENCES);
+        } catch (DataAccessException ex) {
+            //La escritura ya se hizo: la reserva vence sola después de pending-timeout
+            log.warn("Could not release catalog version {}: {}", first, ex.getMessage());
+        }
+    }
+}
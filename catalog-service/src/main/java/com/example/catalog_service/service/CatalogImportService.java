@@ -0,0 +1,242 @@
+package com.example.catalog_service.service;
+
+import com.example.catalog_service.cache.NegativeLookupCache;
+import com.example.catalog_service.dtos.ImportReportDTO;
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.index.CatalogIndexSync;
+import com.example.catalog_service.models.Catalog;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+//Importación masiva del catálogo desde NDJSON o CSV.
+//Lee el archivo línea por línea, valida cada fila y escribe por lotes con bulk inserts
+//desordenados (un error en una fila no frena al resto del lote).
+//Solo hay en memoria un lote a la vez, así que el tamaño del archivo no importa.
+@Service
+public class CatalogImportService {
+    //Columnas esperadas en el CSV (la primera línea es el encabezado)
+    private static final String CSV_HEADER = "movieId,title,genre,releaseYear,description";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private Validator validator;
+    @Autowired
+    private CatalogIndexSync catalogIndexSync;
+    @Autowired
+    private CatalogChangesService catalogChangesService;
+    @Autowired
+    private NegativeLookupCache negativeLookupCache;
+
+    @Value("${catalog.import.batch-size:1000}")
+    private int batchSize;
+    @Value("${catalog.import.max-errors:1000}")
+    private int maxErrors;
+
+    //Una película por línea en JSON
+    @CacheEvict(value = "allMovies", allEntries = true)
+    public ImportReportDTO importNdjson(InputStream input) throws IOException {
+        return importLines(input, false);
+    }
+
+    //CSV con encabezado: movieId,title,genre,releaseYear,description
+    @CacheEvict(value = "allMovies", allEntries = true)
+    public ImportReportDTO importCsv(InputStream input) throws IOException {
+        return importLines(input, true);
+    }
+
+    private ImportReportDTO importLines(InputStream input, boolean csv) throws IOException {
+        ImportReportDTO report = new ImportReportDTO();
+        Batch batch = new Batch();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (csv && lineNumber == 1 && isCsvHeader(line))) {
+                    continue;
+                }
+                report.setReceived(report.getReceived() + 1);
+
+                Catalog catalog;
+                try {
+                    catalog = csv ? parseCsv(line) : objectMapper.readValue(line, Catalog.class);
+                } catch (JsonProcessingException ex) {
+                    addError(report, lineNumber, null, "Invalid JSON: " + ex.getOriginalMessage());
+                    continue;
+                } catch (IllegalArgumentException ex) {
+                    addError(report, lineNumber, null, "Invalid row: " + ex.getMessage());
+                    continue;
+                }
+
+                //Una línea "null" en NDJSON
+                if (catalog == null) {
+                    addError(report, lineNumber, null, "Invalid row: expected a movie object");
+                    continue;
+                }
+                //El id lo elige el archivo: sin él no hay a qué película asociar los índices, tombstones ni caches
+                if (catalog.getMovieId() == null || catalog.getMovieId().isBlank()) {
+                    addError(report, lineNumber, null, "movieId: is required");
+                    continue;
+                }
+
+                //Igual que createMovies: las películas nuevas empiezan sin rating
+                catalog.setRatingAverage(0.0);
+                Set<ConstraintViolation<Catalog>> violations = validator.validate(catalog);
+                if (!violations.isEmpty()) {
+                    addError(report, lineNumber, catalog.getMovieId(), violations.stream()
+                            .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                            .collect(Collectors.joining("; ")));
+                    continue;
+                }
+
+                batch.add(catalog, lineNumber);
+                if (batch.size() >= batchSize) {
+                    flush(batch, report);
+                }
+            }
+        }
+        flush(batch, report);
+        return report;
+    }
+
+    private void flush(Batch batch, ImportReportDTO report) {
+        if (batch.size() == 0) {
+            return;
+        }
+        Set<Integer> failedIndexes = catalogChangesService.stamp(batch.movies, () -> insert(batch, report));
+
+        List<Catalog> inserted = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (!failedIndexes.contains(i)) {
+                inserted.add(batch.movies.get(i));
+            }
+        }
+        report.setInserted(report.getInserted() + inserted.size());
+        catalogChangesService.clearTombstones(inserted.stream().map(Catalog::getMovieId).toList());
+        negativeLookupCache.forget(inserted);
+        //Los índices en memoria también reciben las películas nuevas
+        catalogIndexSync.refresh(inserted);
+        batch.clear();
+    }
+
+    //Devuelve la posición en el lote de las filas que no se pudieron insertar
+    private Set<Integer> insert(Batch batch, ImportReportDTO report) {
+        Set<Integer> failedIndexes = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Catalog.class)
+                    .insert(batch.movies)
+                    .execute();
+        } catch (BulkOperationException ex) {
+            //Con UNORDERED Mongo intenta todas las filas y devuelve el índice de las que fallaron
+            for (BulkWriteError error : ex.getErrors()) {
+                failedIndexes.add(error.getIndex());
+                addError(report, batch.lines.get(error.getIndex()),
+                        batch.movies.get(error.getIndex()).getMovieId(), error.getMessage());
+            }
+        }
+        return failedIndexes;
+    }
+
+    private void addError(ImportReportDTO report, long line, String movieId, String message) {
+        report.setFailed(report.getFailed() + 1);
+        if (report.getErrors().size() < maxErrors) {
+            report.getErrors().add(new ImportReportDTO.RowError(line, movieId, message));
+        }
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.replace(" ", "").equalsIgnoreCase(CSV_HEADER);
+    }
+
+    private static Catalog parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() != 5) {
+            throw new IllegalArgumentException("expected 5 columns (" + CSV_HEADER + ") but got " + fields.size());
+        }
+        Catalog catalog = new Catalog();
+        catalog.setMovieId(fields.get(0).isBlank() ? null : fields.get(0).trim());
+        catalog.setTitle(fields.get(1));
+        catalog.setGenre(fields.get(2).isBlank() ? null : Genre.valueOf(fields.get(2).trim().toUpperCase()));
+        try {
+            catalog.setReleaseYear(fields.get(3).isBlank() ? null : Integer.valueOf(fields.get(3).trim()));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("releaseYear is not a number: " + fields.get(3));
+        }
+        catalog.setDescription(fields.get(4));
+        return catalog;
+    }
+
+    //Separa una línea CSV respetando comillas ("a, b" es un solo campo y "" es una comilla literal)
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    //Lote pendiente de escribir, con el número de línea de cada película para el reporte
+    private static class Batch {
+        private final List<Catalog> movies = new ArrayList<>();
+        private final List<Long> lines = new ArrayList<>();
+
+        void add(Catalog catalog, long line) {
+            movies.add(catalog);
+            lines.add(line);
+        }
+
+        int size() {
+            return movies.size();
+        }
+
+        void clear() {
+            movies.clear();
+            lines.clear();
+        }
+    }
+}
@@ -1,28 +1,79 @@
 package com.example.catalog_service.service;
 
+import com.example.catalog_service.cache.MultiGetCache;
+import com.example.catalog_service.cache.NegativeLookupCache;
+import com.example.catalog_service.dtos.CatalogBatchDTO;
+import com.example.catalog_service.dtos.CatalogCursorPageDTO;
 import com.example.catalog_service.dtos.CatalogDTO;
+import com.example.catalog_service.dtos.CatalogFacetsDTO;
+import com.example.catalog_service.dtos.CatalogFilter;
+import com.example.catalog_service.dtos.CatalogQueryResultDTO;
+import com.example.catalog_service.dtos.CatalogPageDTO;
 import com.example.catalog_service.dtos.CatalogUpdateDto;
 import com.example.catalog_service.dtos.RatingScoreDTO;
 import com.example.catalog_service.enums.Genre;
 import com.example.catalog_service.exception.GenreNotFoundException;
+import com.example.catalog_service.exception.InvalidFieldException;
 import com.example.catalog_service.exception.MovieNotFound;
 import com.example.catalog_service.exception.MovieNotFoundByName;
+import com.example.catalog_service.index.CatalogIndexSync;
+import com.example.catalog_service.index.CatalogQueryIndex;
+import com.example.catalog_service.index.FacetCountIndex;
+import com.example.catalog_service.index.MovieIdBloomFilter;
+import com.example.catalog_service.index.TitleSearchIndex;
+import com.example.catalog_service.index.TopRatedIndex;
 import com.example.catalog_service.mapper.CatalogMapper;
 import com.example.catalog_service.models.Catalog;
 import com.example.catalog_service.repository.CatalogRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class CatalogService {
+    private static final Sort BY_RATING_DESC = Sort.by(Sort.Direction.DESC, "ratingAverage");
+
     @Autowired
  private CatalogRepository catalogRepository;
+    @Autowired
+    private TopRatedIndex topRatedIndex;
+    @Autowired
+    private TitleSearchIndex titleSearchIndex;
+    @Autowired
+    private FacetCountIndex facetCountIndex;
+    @Autowired
+    private CatalogQueryIndex catalogQueryIndex;
+    @Autowired
+    private CatalogIndexSync catalogIndexSync;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private CatalogChangesService catalogChangesService;
+    @Autowired
+    private MovieIdBloomFilter movieIdBloomFilter;
+    @Autowired
+    private NegativeLookupCache negativeLookupCache;
+
+    @Value("${catalog.top.max-k:100}")
+    private int maxTopK;
+    @Value("${catalog.page.max-limit:1000}")
+    private int maxPageLimit;
+    @Value("${catalog.search.max-limit:50}")
+    private int maxSearchLimit;
 
  //CRUD operations:
     //value = "movies" → nombre del cache donde se guardará
@@ -37,85 +88,285 @@ public class CatalogService {
      }
      //Make ratingAverage(0.0) when a movie is created
      catalogs.forEach(c -> c.setRatingAverage(0.0));
-
-     return catalogRepository.saveAll(catalogs);
+     List<Catalog> saved = catalogChangesService.stamp(catalogs, () -> catalogRepository.saveAll(catalogs));
+     catalogChangesService.clearTombstones(saved.stream().map(Catalog::getMovieId).toList());
+     //Ya existen: dejan de estar en el cache de "no existe"
+     negativeLookupCache.forget(saved);
+     return saved;
     }
 
     //Find a movie by movieId:
+    //Un id que no existe se rechaza con el cache de "no existe" (TTL corto) o después de buscarlo en MongoDB.
+    //El Bloom filter no rechaza nada: un id que no conoce puede ser de una película recién creada en otra réplica
     @Cacheable(value = "movies", key = "#movieId")
     public Catalog findMovieById(String movieId){
+        if (negativeLookupCache.isMissingMovie(movieId)) {
+            throw new MovieNotFound(movieId);
+        }
+        Catalog catalog = catalogRepository.findById(movieId)
+                .orElseThrow(() -> {
+                    negativeLookupCache.rememberMissingMovie(movieId);
+                    return new MovieNotFound(movieId);
+                });
+        rememberIfUnknown(catalog);
+        return catalog;
+    }
+
+    //Instancia recién leída de MongoDB para modificarla: nunca la de un cache (si el save falla, o mientras
+    //otro request la lee, se vería a medio actualizar)
+    private Catalog loadForUpdate(String movieId) {
         return catalogRepository.findById(movieId)
                 .orElseThrow(() -> new MovieNotFound(movieId));
     }
 
+    //El Bloom filter de esta réplica no ve una película creada en otra hasta el próximo sync (cada pocos segundos):
+    //un "no existe" es solo una pista y MongoDB decide. Si MongoDB la tiene, se agrega al filtro sin esperar el sync
+    private void rememberIfUnknown(Catalog catalog) {
+        if (catalogIndexSync.isReady() && !movieIdBloomFilter.mightContain(catalog.getMovieId())) {
+            movieIdBloomFilter.upsert(catalog);
+        }
+    }
+
+    //Find many movies by id: cache first (L1 + un solo MGET a Redis), el resto con un solo findAllById
+    public CatalogBatchDTO findMoviesByIds(List<String> movieIds){
+        List<String> distinctIds = movieIds.stream().distinct().toList();
+        Cache movies = cacheManager.getCache("movies");
+
+        Map<String, Catalog> found = new HashMap<>();
+        if (movies instanceof MultiGetCache batchCache) {
+            batchCache.getAll(distinctIds).forEach((id, value) -> found.put(id, (Catalog) value));
+        } else if (movies != null) {
+            distinctIds.forEach(id -> {
+                Catalog cached = movies.get(id, Catalog.class);
+                if (cached != null) {
+                    found.put(id, cached);
+                }
+            });
+        }
+
+        List<String> misses = distinctIds.stream()
+                .filter(id -> !found.containsKey(id))
+                .toList();
+        if (!misses.isEmpty()) {
+            Map<String, Catalog> loaded = new HashMap<>();
+            catalogRepository.findAllById(misses).forEach(c -> loaded.put(c.getMovieId(), c));
+            loaded.values().forEach(this::rememberIfUnknown);
+            if (movies instanceof MultiGetCache batchCache) {
+                batchCache.putAll(loaded);
+            } else if (movies != null) {
+                loaded.forEach(movies::put);
+            }
+            found.putAll(loaded);
+        }
+
+        List<Catalog> result = new ArrayList<>(movieIds.size());
+        List<String> missing = new ArrayList<>();
+        for (String movieId : movieIds) {
+            Catalog catalog = found.get(movieId);
+            if (catalog != null) {
+                result.add(catalog);
+            } else {
+                missing.add(movieId);
+            }
+        }
+        return new CatalogBatchDTO(result, missing);
+    }
+
     //Find all movies:
-    @Cacheable(value = "allMovies")
+    //sync = true: cuando vence, una sola carga de MongoDB por réplica y por clave (ver SingleFlightCache)
+    //Con los índices al día la carga no consulta MongoDB. Los de un snapshot todavía sin verificar no se usan:
+    //el resultado queda en Redis para todas las réplicas
+    @Cacheable(value = "allMovies", sync = true)
     public List<Catalog> findAllMovies(){
+     if (catalogIndexSync.isReady()) {
+         return catalogQueryIndex.all();
+     }
      return catalogRepository.findAll();
     }
 
+    //Keyset pagination: ?after=<último movieId de la página anterior>&limit=
+    //fields: campos a traer de MongoDB (vacío = documento completo)
+    public CatalogCursorPageDTO findMoviesAfter(String after, int limit, List<String> fields){
+        int size = Math.min(limit, maxPageLimit);
+        //Pedimos uno de más para saber si hay página siguiente
+        List<Catalog> movies = catalogRepository.findPageAfter(after, size + 1, fields);
+
+        if (movies.size() <= size) {
+            return new CatalogCursorPageDTO(movies, null);
+        }
+        List<Catalog> page = movies.subList(0, size);
+        return new CatalogCursorPageDTO(page, page.get(size - 1).getMovieId());
+    }
+
+    //Stream backed by a MongoDB cursor (el que llama debe cerrarlo)
+    public Stream<Catalog> streamAllMovies(List<String> fields){
+        return catalogRepository.streamAll(fields);
+    }
+
     //Update a movie using mapper:
+    //El título o los datos pueden cambiar: también se invalidan la lista completa y la búsqueda por título
     @CachePut(value = "movies", key = "#movieId")
+    @CacheEvict(value = {"allMovies", "moviesByTitle"}, allEntries = true)
     public Catalog changeCatalog(String movieId, CatalogUpdateDto catalogUpdateDto){
-        Catalog updatedCatalog = findMovieById(movieId);
+        Catalog updatedCatalog = loadForUpdate(movieId);
 
         CatalogMapper.INSTANCE.updateCatalogFromDto(catalogUpdateDto, updatedCatalog);
-
-        return catalogRepository.save(updatedCatalog);
+        Catalog saved = catalogChangesService.withVersion(version -> {
+            updatedCatalog.setVersion(version);
+            return catalogRepository.save(updatedCatalog);
+        });
+        //Puede tener un título nuevo
+        negativeLookupCache.forget(List.of(saved));
+        return saved;
     }
 
 
     //Delete a movie
-    @CacheEvict(value = "movies", key = "#movieId")
+    @Caching(evict = {
+            @CacheEvict(value = "movies", key = "#movieId"),
+            @CacheEvict(value = {"allMovies", "moviesByTitle"}, allEntries = true)
+    })
     public void removeMovieById(String movieId){
      //Throws exception
         findMovieById(movieId);
         //Deletes movie
         catalogRepository.deleteById(movieId);
+        //Queda registrado para /catalog/changes
+        catalogChangesService.recordDelete(movieId);
     }
 
     //Other CRUD operations:
     @Cacheable(value = "moviesByTitle", key = "#title")
     public Catalog findByTitle(String title){
+     if (negativeLookupCache.isMissingTitle(title)) {
+         throw new MovieNotFoundByName(title);
+     }
      return catalogRepository.findByTitle(title)
-             .orElseThrow(()-> new MovieNotFoundByName(title));
+             .orElseThrow(()-> {
+                 negativeLookupCache.rememberMissingTitle(title);
+                 return new MovieNotFoundByName(title);
+             });
+    }
+
+    //Typeahead: resuelto en memoria por TitleSearchIndex, sin consultar MongoDB ni Redis
+    public List<CatalogDTO> searchByTitle(String query, int limit){
+        int max = Math.min(limit, maxSearchLimit);
+        if (!catalogIndexSync.isLoaded()) {
+            //Mientras se carga el índice al arrancar, busca MongoDB por prefijo de palabra
+            List<String> terms = TitleSearchIndex.words(query);
+            if (terms.isEmpty() || max < 1) {
+                return List.of();
+            }
+            return catalogRepository.findByTitleWords(terms, max).stream()
+                    .map(CatalogDTO::new)
+                    .toList();
+        }
+        return titleSearchIndex.search(query, max);
     }
 
     //Update score:
     @CachePut(value = "movies", key = "#dto.movieId")
-    @CacheEvict(value = "top3Movies", allEntries = true)
     public Catalog changeScore(RatingScoreDTO dto){
-        Catalog catalog= findMovieById(dto.getMovieId());
+        Catalog catalog= loadForUpdate(dto.getMovieId());
         catalog.setRatingAverage(dto.getRatingAverage());
-        return catalogRepository.save(catalog);
+        return catalogChangesService.withVersion(version -> {
+            catalog.setVersion(version);
+            return catalogRepository.save(catalog);
+        });
     }
+    //Update many scores at once (rating bursts): one bulk write and one cache invalidation pass.
+    //Si llegan varios scores para la misma película, gana el último.
+    @CacheEvict(value = "allMovies", allEntries = true)
+    public int changeScores(List<RatingScoreDTO> dtos){
+        if (dtos == null || dtos.isEmpty()) {
+            throw new IllegalArgumentException("The score list cannot be empty");
+        }
+        Map<String, Double> latest = new LinkedHashMap<>();
+        dtos.forEach(dto -> latest.put(dto.getMovieId(), dto.getRatingAverage()));
+
+        int matched = catalogChangesService.withVersions(latest.size(),
+                firstVersion -> catalogRepository.updateScores(latest, firstVersion));
+
+        Cache movies = cacheManager.getCache("movies");
+        if (movies != null) {
+            latest.keySet().forEach(movies::evict);
+        }
+        //El bulk update no dispara eventos de MongoDB: actualizamos los índices a mano
+        catalogIndexSync.updateScores(latest);
+        return matched;
+    }
+
 //ARREGLAR PARA VERIFICAR SI LOS GENEROS INTRODUCIDOS EXISTEN
     //MANEJO DE ERRORES:
     //Filter by genre
+    //La consulta usa el índice genre_rating_idx: no se carga el catálogo completo en memoria
     public List<Catalog> findByGenre(List<Genre> genres) {
-        Set<Genre> genreSet = new HashSet<>(genres); // Para optimizar contains}
-        return findAllMovies().stream()
-                //Solo mantenemos las películas cuyo género está en la lista genres
-                .filter(catalog -> genreSet.contains(catalog.getGenre()))
-                .collect(Collectors.toList());
+        return catalogRepository.findByGenreIn(new HashSet<>(genres));
+    }
+
+    //Filter by genre with paging and sorting done by MongoDB
+    public CatalogPageDTO findByGenre(List<Genre> genres, Pageable pageable) {
+        Slice<Catalog> slice = catalogRepository.findByGenreIn(new HashSet<>(genres), pageable);
+        return new CatalogPageDTO(slice);
     }
 
     //Find Top 3 movies with better rating:
-    @Cacheable(value = "top3Movies")
     public List<Catalog> findTop3(){
-     return findAllMovies().stream()
-             //Ordena las películas por ratingAverage de mayor a menor.
-             //.reversed() invierte el orden natural (que sería de menor a mayor).
-             .sorted(Comparator.comparingDouble(Catalog::getRatingAverage).reversed())
-             // Take first 3
-             .limit(3)
-             .collect(Collectors.toList());
+     return findTop(3);
+    }
+
+    //Top K movies by ratingAverage, read from the in-memory ranking (TopRatedIndex).
+    //changeScore ya no invalida ningún cache: el ranking se actualiza en el lugar.
+    public List<Catalog> findTop(int k){
+        int limit = Math.min(k, maxTopK);
+        if (!catalogIndexSync.isLoaded()) {
+            //Mientras se carga el índice al arrancar, ordenamos en MongoDB
+            return catalogRepository.findAll(PageRequest.of(0, limit, BY_RATING_DESC)).getContent();
+        }
+        return topRatedIndex.top(limit);
+    }
+
+    //Top K movies of one genre
+    public List<Catalog> findTop(Genre genre, int k){
+        int limit = Math.min(k, maxTopK);
+        if (!catalogIndexSync.isLoaded()) {
+            return catalogRepository.findByGenreIn(List.of(genre), PageRequest.of(0, limit, BY_RATING_DESC)).getContent();
+        }
+        return topRatedIndex.top(genre, limit);
+    }
+
+    //Filtros combinados (géneros + rango de años + rating mínimo), ordenados por ratingAverage o releaseYear.
+    //Los resuelve CatalogQueryIndex con intersecciones de bitmaps en memoria
+    public CatalogQueryResultDTO queryMovies(CatalogFilter filter, Pageable pageable){
+        for (Sort.Order order : pageable.getSort()) {
+            if (!CatalogQueryIndex.SORTABLE.contains(order.getProperty())) {
+                throw new InvalidFieldException(order.getProperty(), CatalogQueryIndex.SORTABLE);
+            }
+        }
+        Pageable page = PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), maxPageLimit), pageable.getSort());
+        if (!catalogIndexSync.isLoaded()) {
+            //Mientras se carga el índice al arrancar, filtra MongoDB
+            return new CatalogQueryResultDTO(catalogRepository.findByFilter(filter, page),
+                    catalogRepository.countByFilter(filter), page.getPageNumber(), page.getPageSize());
+        }
+        return catalogQueryIndex.query(filter, page);
+    }
+
+    //Conteos para los filtros (género, década, rating), mantenidos en memoria por FacetCountIndex
+    public CatalogFacetsDTO findFacets(){
+        if (!catalogIndexSync.isLoaded()) {
+            //Mientras se carga el índice al arrancar, los calcula MongoDB con $facet
+            return catalogRepository.countFacets();
+        }
+        return facetCountIndex.snapshot();
     }
 
     //Group movies by genre
     public Map<Genre, List<CatalogDTO>> groupByGenre(Genre genre){
-        List<CatalogDTO> filtered = findAllMovies().stream()
-                .filter(movie -> movie.getGenre().equals(genre))
+        List<Catalog> movies = catalogIndexSync.isLoaded()
+                ? catalogQueryIndex.all(genre)
+                : catalogRepository.findByGenre(genre);
+        List<CatalogDTO> filtered = movies.stream()
                 .map(CatalogDTO::new)
                 .toList();
 
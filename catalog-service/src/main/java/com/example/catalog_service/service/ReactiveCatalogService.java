@@ -0,0 +1,113 @@
+package com.example.catalog_service.service;
+
+import com.example.catalog_service.cache.NegativeLookupCache;
+import com.example.catalog_service.cache.ReactiveCacheOperations;
+import com.example.catalog_service.dtos.CatalogDTO;
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.index.CatalogIndexSync;
+import com.example.catalog_service.index.MovieIdBloomFilter;
+import com.example.catalog_service.index.TopRatedIndex;
+import com.example.catalog_service.models.Catalog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+//Lecturas del catálogo sin bloquear hilos: MongoDB con el driver reactivo y Redis con Lettuce reactivo.
+//Mismas reglas que CatalogService (Bloom filter, cache de "no existe", índices en memoria, límites);
+//las escrituras siguen pasando solo por CatalogService.
+//Un Mono vacío es "no existe" (el controller responde 404).
+@Service
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+public class ReactiveCatalogService {
+    private static final Sort BY_RATING_DESC = Sort.by(Sort.Direction.DESC, "ratingAverage");
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+    @Autowired
+    private ReactiveCacheOperations reactiveCache;
+    @Autowired
+    private CatalogIndexSync catalogIndexSync;
+    @Autowired
+    private MovieIdBloomFilter movieIdBloomFilter;
+    @Autowired
+    private TopRatedIndex topRatedIndex;
+
+    @Value("${catalog.top.max-k:100}")
+    private int maxTopK;
+    @Value("${catalog.page.max-limit:1000}")
+    private int maxPageLimit;
+
+    //Cache "movies" (compartido con CatalogService.findMovieById) y si no, MongoDB.
+    //Si el Bloom filter dice que no existe, es muy probable que tampoco esté en "movies": se saltea ese GET,
+    //pero se consulta igual el cache negativo y MongoDB (puede haberse creado en otra réplica después del último sync).
+    //Como en CatalogService, un id que MongoDB no tiene queda en el cache de "no existe"
+    public Mono<Catalog> findMovieById(String movieId) {
+        Mono<Catalog> fromMongo = Mono.defer(() -> reactiveCache.contains(NegativeLookupCache.MISSING_MOVIES, movieId)
+                .flatMap(missing -> missing ? Mono.<Catalog>empty() : load("movies", movieId,
+                        NegativeLookupCache.MISSING_MOVIES, reactiveMongoTemplate.findById(movieId, Catalog.class))));
+        if (catalogIndexSync.isReady() && !movieIdBloomFilter.mightContain(movieId)) {
+            return fromMongo.doOnNext(movieIdBloomFilter::upsert);
+        }
+        return reactiveCache.get("movies", movieId, Catalog.class).switchIfEmpty(fromMongo);
+    }
+
+    public Mono<Catalog> findByTitle(String title) {
+        return reactiveCache.get("moviesByTitle", title, Catalog.class)
+                .switchIfEmpty(Mono.defer(() -> reactiveCache.contains(NegativeLookupCache.MISSING_TITLES, title)
+                        .flatMap(missing -> missing ? Mono.<Catalog>empty() : load("moviesByTitle", title,
+                                NegativeLookupCache.MISSING_TITLES, reactiveMongoTemplate.findOne(
+                                        new Query(Criteria.where("title").is(title)), Catalog.class)))));
+    }
+
+    //Lo leído de MongoDB va al cache (sin pisar un valor más nuevo); si no está, al cache de "no existe"
+    private Mono<Catalog> load(String cacheName, String key, String missingCacheName, Mono<Catalog> fromMongo) {
+        return fromMongo
+                .flatMap(movie -> reactiveCache.putIfAbsent(cacheName, key, movie).thenReturn(movie))
+                .switchIfEmpty(Mono.defer(() -> reactiveCache.putIfAbsent(missingCacheName, key, Boolean.TRUE)
+                        .then(Mono.empty())));
+    }
+
+    //Todo el catálogo a medida que llega del cursor (con backpressure): no se arma la lista en memoria
+    public Flux<Catalog> findAllMovies() {
+        return reactiveMongoTemplate.findAll(Catalog.class);
+    }
+
+    public Flux<Catalog> findByGenre(List<Genre> genres, Pageable pageable) {
+        Pageable page = PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), maxPageLimit),
+                pageable.getSort());
+        Query query = new Query(Criteria.where("genre").in(new HashSet<>(genres))).with(page);
+        return reactiveMongoTemplate.find(query, Catalog.class);
+    }
+
+    //Con los índices cargados no hay I/O; mientras tanto ordena MongoDB
+    public Flux<Catalog> findTop(Genre genre, int k) {
+        int limit = Math.min(k, maxTopK);
+        if (catalogIndexSync.isLoaded()) {
+            return Flux.fromIterable(genre == null ? topRatedIndex.top(limit) : topRatedIndex.top(genre, limit));
+        }
+        Query query = genre == null ? new Query() : new Query(Criteria.where("genre").is(genre));
+        return reactiveMongoTemplate.find(query.with(BY_RATING_DESC).limit(limit), Catalog.class);
+    }
+
+    public Mono<Map<Genre, List<CatalogDTO>>> groupByGenre(Genre genre) {
+        return reactiveMongoTemplate.find(new Query(Criteria.where("genre").is(genre)), Catalog.class)
+                .map(CatalogDTO::new)
+                .collectList()
+                .filter(movies -> !movies.isEmpty())
+                .map(movies -> movies.stream().collect(Collectors.groupingBy(CatalogDTO::getGenre)));
+    }
+}
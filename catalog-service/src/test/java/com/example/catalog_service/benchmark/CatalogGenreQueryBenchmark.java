@@ -0,0 +1,117 @@
+package com.example.catalog_service.benchmark;
+
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.models.Catalog;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//Compara el filtrado por género en memoria (findAll + filter, como hacía findByGenre)
+//contra la consulta indexada con paginación y orden en MongoDB.
+//No corre con "mvn test" (el nombre no termina en Test). Para ejecutarlo:
+//  mvn test -Dtest=CatalogGenreQueryBenchmark -Dsurefire.failIfNoSpecifiedTests=false
+@Tag("benchmark")
+@Testcontainers
+public class CatalogGenreQueryBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int ITERATIONS = 5;
+    private static final Set<Genre> GENRES = Set.of(Genre.HORROR);
+
+    @Container
+    static MongoDBContainer mongoContainer = new MongoDBContainer("mongo:6.0");
+
+    private static MongoClient mongoClient;
+    private static MongoTemplate mongoTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        mongoClient = MongoClients.create(mongoContainer.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(mongoClient, "catalog_benchmark_db");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mongoClient.close();
+    }
+
+    @ParameterizedTest(name = "{0} titles")
+    @ValueSource(ints = {10_000, 100_000, 1_000_000})
+    void compareGenreQueries(int titles) {
+        load(titles);
+
+        long fullScan = 0;
+        long indexed = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            List<Catalog> inMemory = mongoTemplate.findAll(Catalog.class).stream()
+                    .filter(c -> GENRES.contains(c.getGenre()))
+                    .sorted((a, b) -> Double.compare(b.getRatingAverage(), a.getRatingAverage()))
+                    .limit(PAGE_SIZE)
+                    .collect(Collectors.toList());
+            fullScan += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Query query = new Query(Criteria.where("genre").in(GENRES))
+                    .with(Sort.by(Sort.Direction.DESC, "ratingAverage"))
+                    .limit(PAGE_SIZE);
+            List<Catalog> fromIndex = mongoTemplate.find(query, Catalog.class);
+            indexed += System.nanoTime() - start;
+
+            assertEquals(inMemory.size(), fromIndex.size());
+        }
+
+        System.out.printf("%,d titles -> full scan: %d ms, indexed: %d ms (avg of %d)%n",
+                titles, fullScan / ITERATIONS / 1_000_000, indexed / ITERATIONS / 1_000_000, ITERATIONS);
+    }
+
+    private void load(int titles) {
+        mongoTemplate.dropCollection(Catalog.class);
+        IndexOperations indexOps = mongoTemplate.indexOps(Catalog.class);
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(Catalog.class)
+                .forEach(indexOps::ensureIndex);
+
+        Random random = new Random(42);
+        Genre[] genres = Genre.values();
+        List<Catalog> batch = new ArrayList<>();
+        for (int i = 0; i < titles; i++) {
+            Catalog catalog = new Catalog();
+            catalog.setMovieId("m" + i);
+            catalog.setTitle("Title" + i);
+            catalog.setGenre(genres[random.nextInt(genres.length)]);
+            catalog.setReleaseYear(1950 + random.nextInt(75));
+            catalog.setDescription("-----");
+            catalog.setRatingAverage(Math.round(random.nextDouble() * 50) / 10.0);
+            batch.add(catalog);
+            if (batch.size() == 10_000) {
+                mongoTemplate.insert(batch, Catalog.class);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.insert(batch, Catalog.class);
+        }
+    }
+}
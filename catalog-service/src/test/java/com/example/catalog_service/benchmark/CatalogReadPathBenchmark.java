@@ -0,0 +1,190 @@
+package com.example.catalog_service.benchmark;
+
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.models.Catalog;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//Compara el camino bloqueante (/catalog) con el reactivo (/reactive/catalog) con la misma carga:
+//CLIENTS clientes concurrentes durante DURATION contra un Tomcat limitado a 16 hilos.
+//Cada par lee de la misma fuente, así la diferencia es solo el modelo de hilos:
+// - genre: MongoDB en los dos
+// - byTitle: Redis en los dos (sin L1 en memoria: catalog.cache.l1.names=none)
+// - top: índices en memoria en los dos (sin I/O: mide solo el costo del framework)
+//Para comparar con el mismo presupuesto de CPU, limitar los procesadores de la JVM:
+//  mvn test -Dtest=CatalogReadPathBenchmark -Dsurefire.failIfNoSpecifiedTests=false -DargLine=-XX:ActiveProcessorCount=2
+@Tag("benchmark")
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "catalog.reactive.enabled=true",
+        "catalog.snapshot.enabled=false",
+        "catalog.cache.l1.names=none",
+        "server.tomcat.threads.max=16"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CatalogReadPathBenchmark {
+
+    private static final int TITLES = 20_000;
+    private static final int CLIENTS = 200;
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+    private static final Duration DURATION = Duration.ofSeconds(20);
+
+    @Container
+    static MongoDBContainer mongoContainer = new MongoDBContainer("mongo:6.0");
+
+    @Container
+    static GenericContainer<?> redisContainer = new GenericContainer<>("redis:7").withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", () -> mongoContainer.getReplicaSetUrl("catalog_benchmark_db"));
+        registry.add("spring.data.redis.host", redisContainer::getHost);
+        registry.add("spring.data.redis.port", () -> redisContainer.getMappedPort(6379));
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .executor(Executors.newFixedThreadPool(CLIENTS))
+            .build();
+
+    @BeforeAll
+    void load() {
+        mongoTemplate.dropCollection(Catalog.class);
+        Random random = new Random(42);
+        Genre[] genres = Genre.values();
+        List<Catalog> batch = new ArrayList<>();
+        for (int i = 0; i < TITLES; i++) {
+            Catalog catalog = new Catalog();
+            catalog.setMovieId("m" + i);
+            catalog.setTitle("Title" + i);
+            catalog.setGenre(genres[random.nextInt(genres.length)]);
+            catalog.setReleaseYear(1950 + random.nextInt(75));
+            catalog.setDescription("-----");
+            catalog.setRatingAverage(Math.round(random.nextDouble() * 50) / 10.0);
+            batch.add(catalog);
+        }
+        mongoTemplate.insert(batch, Catalog.class);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({
+            "/catalog/genre?genres=ACTION&size=50, /reactive/catalog/genre?genres=ACTION&size=50",
+            "/catalog/byTitle/Title7, /reactive/catalog/byTitle/Title7",
+            "/catalog/top/10, /reactive/catalog/top/10"
+    })
+    void compareReadPaths(String blockingPath, String reactivePath) throws Exception {
+        run(blockingPath, WARM_UP);
+        run(reactivePath, WARM_UP);
+
+        Result blocking = run(blockingPath, DURATION);
+        Result reactive = run(reactivePath, DURATION);
+
+        System.out.printf("%-45s %8.0f req/s  p99 %5d ms  errors %d%n", blockingPath,
+                blocking.throughput(), blocking.p99Millis(), blocking.errors);
+        System.out.printf("%-45s %8.0f req/s  p99 %5d ms  errors %d%n", reactivePath,
+                reactive.throughput(), reactive.p99Millis(), reactive.errors);
+        assertEquals(0, blocking.errors + reactive.errors);
+    }
+
+    //Cada cliente manda un request y espera la respuesta antes del siguiente (carga cerrada)
+    private Result run(String path, Duration duration) throws Exception {
+        URI uri = URI.create("http://localhost:" + port + path);
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                futures.add(clients.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    long errors = 0;
+                    HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        if (response.statusCode() != 200) {
+                            errors++;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    long[] result = Arrays.copyOf(latencies, count + 1);
+                    result[count] = errors;
+                    return result;
+                }));
+            }
+            List<Long> all = new ArrayList<>();
+            long errors = 0;
+            for (Future<long[]> future : futures) {
+                long[] latencies = future.get();
+                for (int i = 0; i < latencies.length - 1; i++) {
+                    all.add(latencies[i]);
+                }
+                errors += latencies[latencies.length - 1];
+            }
+            return new Result(all, errors, duration);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static class Result {
+        private final long[] latencies;
+        private final long errors;
+        private final Duration duration;
+
+        Result(List<Long> latencies, long errors, Duration duration) {
+            this.latencies = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            this.errors = errors;
+            this.duration = duration;
+        }
+
+        double throughput() {
+            return latencies.length / (duration.toMillis() / 1000.0);
+        }
+
+        long p99Millis() {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            return latencies[(int) Math.min(latencies.length - 1, Math.ceil(latencies.length * 0.99) - 1)] / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.catalog_service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RefreshAheadCacheTest {
+
+    private ConcurrentMapCache delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new ConcurrentMapCache("allMovies");
+        meterRegistry = new SimpleMeterRegistry();
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Should serve the current value and refresh it in the background when close to expiry")
+    void get_NearExpiry_ShouldRefreshInBackground() {
+        //El executor corre el refresh en el mismo hilo para poder verificarlo
+        RefreshAheadCache cache = new RefreshAheadCache(delegate, Duration.ofMinutes(10), 1.0, Runnable::run, meterRegistry);
+        delegate.put("key", new RefreshAheadCache.CachedValue("old", System.currentTimeMillis() - 1, 50));
+
+        assertEquals("old", cache.get("key", () -> "v" + loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+        assertEquals("v1", cache.get("key", String.class));
+        assertEquals(1, meterRegistry.get("cache.refresh").tag("result", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should not refresh a fresh entry and should load on a miss")
+    void get_FreshEntry_ShouldNotRefresh() {
+        RefreshAheadCache cache = new RefreshAheadCache(delegate, Duration.ofMinutes(10), 1.0, Runnable::run, meterRegistry);
+
+        assertEquals("v1", cache.get("key", () -> "v" + loads.incrementAndGet()));
+        assertEquals("v1", cache.get("key", () -> "v" + loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+        assertEquals(0, meterRegistry.get("cache.refresh").tag("result", "success").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should discard a background refresh when the key is evicted while it loads")
+    void evict_DuringRefresh_ShouldDiscardRefreshedValue() {
+        RefreshAheadCache cache = new RefreshAheadCache(delegate, Duration.ofMinutes(10), 1.0, Runnable::run, meterRegistry);
+        delegate.put("key", new RefreshAheadCache.CachedValue("old", System.currentTimeMillis() - 1, 50));
+
+        //El loader corre dentro del refresh: el evict llega mientras todavía está cargando
+        assertEquals("old", cache.get("key", () -> {
+            cache.evict("key");
+            return "read before the change";
+        }));
+
+        assertNull(delegate.get("key"));
+        assertEquals("v1", cache.get("key", () -> "v" + loads.incrementAndGet()));
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.catalog_service.cache;
+
+import com.example.catalog_service.index.CatalogIndex;
+import com.example.catalog_service.models.Catalog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TwoLevelCacheTest {
+
+    private ConcurrentMapCache l1;
+    private ConcurrentMapCache l2;
+    private SimpleMeterRegistry meterRegistry;
+    private List<String> published;
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        l1 = new ConcurrentMapCache("movies-l1");
+        l2 = new ConcurrentMapCache("movies-l2");
+        meterRegistry = new SimpleMeterRegistry();
+        published = new ArrayList<>();
+        cache = new TwoLevelCache("movies", l1, l2, null,
+                (name, key) -> published.add(name + ":" + key), new L1ValueCopier().register(Catalog.class, CatalogIndex::copyOf), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should copy an L2 hit into L1 and serve the next read from L1")
+    void get_ShouldPromoteL2HitToL1() {
+        l2.put("1L", "Title1");
+
+        assertEquals("Title1", cache.get("1L").get());
+        assertNotNull(l1.get("1L"));
+        assertEquals("Title1", cache.get("1L").get());
+
+        assertEquals(1.0, count("l1", "hit"));
+        assertEquals(1.0, count("l1", "miss"));
+        assertEquals(1.0, count("l2", "hit"));
+    }
+
+    @Test
+    @DisplayName("Should write both tiers and notify other replicas on put and evict")
+    void putAndEvict_ShouldPublishInvalidation() {
+        cache.put("1L", "Title1");
+        assertEquals("Title1", l2.get("1L").get());
+
+        cache.evict("1L");
+        assertNull(l1.get("1L"));
+        assertNull(l2.get("1L"));
+
+        cache.clear();
+        assertEquals(List.of("movies:1L", "movies:1L", "movies:null"), published);
+    }
+
+    @Test
+    @DisplayName("Should drop only the local L1 entry on a remote invalidation")
+    void evictLocal_ShouldKeepL2() {
+        cache.put("1L", "Title1");
+
+        cache.evictLocal("1L");
+
+        assertNull(l1.get("1L"));
+        assertEquals("Title1", l2.get("1L").get());
+    }
+
+    @Test
+    @DisplayName("Should resolve a batch from L1 first, then L2, and report only found keys")
+    void getAll_ShouldCombineTiers() {
+        cache.put("1L", "Title1");
+        l2.evict("1L");
+        l2.put("2L", "Title2");
+
+        Map<String, Object> found = cache.getAll(List.of("1L", "2L", "3L"));
+
+        assertEquals(Map.of("1L", "Title1", "2L", "Title2"), found);
+        assertNotNull(l1.get("2L"));
+        assertEquals(1.0, count("l2", "miss"));
+    }
+
+    @Test
+    @DisplayName("Should not overwrite a value another writer stored while the batch was loading")
+    void putAll_ShouldKeepExistingL2Value() {
+        l2.put("1L", "Updated1");
+
+        cache.putAll(Map.of("1L", "Stale1", "2L", "Title2"));
+
+        assertEquals("Updated1", l2.get("1L").get());
+        assertNull(l1.get("1L"));
+        assertEquals("Title2", cache.get("2L").get());
+        assertEquals("Updated1", cache.get("1L").get());
+    }
+
+    @Test
+    @DisplayName("Should hand out a new instance on every L1 hit, so changing it does not change the cache")
+    void get_ShouldNotShareL1Instances() {
+        List<String> titles = new ArrayList<>(List.of("Title1"));
+        cache.put("titles", titles);
+        titles.add("changed after put");
+
+        @SuppressWarnings("unchecked")
+        List<String> first = (List<String>) cache.get("titles").get();
+        first.add("changed after get");
+
+        assertEquals(List.of("Title1"), cache.get("titles").get());
+        assertNotSame(first, cache.get("titles").get());
+    }
+
+    @Test
+    @DisplayName("Should keep a copy of the object in L1, not JSON, and copy it again on every hit")
+    void get_ShouldCopyRegisteredTypes() {
+        Catalog movie = new Catalog();
+        movie.setMovieId("1L");
+        movie.setTitle("Title1");
+        cache.put("1L", List.of(movie));
+        movie.setTitle("changed after put");
+
+        assertInstanceOf(List.class, l1.get("1L").get());
+        @SuppressWarnings("unchecked")
+        List<Catalog> first = (List<Catalog>) cache.get("1L").get();
+        first.get(0).setTitle("changed after get");
+
+        @SuppressWarnings("unchecked")
+        List<Catalog> second = (List<Catalog>) cache.get("1L").get();
+        assertEquals("Title1", second.get(0).getTitle());
+        assertEquals(2.0, count("l1", "hit"));
+    }
+
+    @Test
+    @DisplayName("Should serve a value it cannot copy from L2 only")
+    void put_ShouldSkipL1_ForUnknownMutableTypes() {
+        StringBuilder mutable = new StringBuilder("Title1");
+
+        cache.put("1L", mutable);
+
+        assertNull(l1.get("1L"));
+        assertSame(mutable, cache.get("1L").get());
+        assertEquals(1.0, count("l2", "hit"));
+    }
+
+    private double count(String tier, String result) {
+        return meterRegistry.get("cache.tier.gets")
+                .tag("tier", tier)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+}
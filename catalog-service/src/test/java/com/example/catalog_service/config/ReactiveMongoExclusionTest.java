@@ -0,0 +1,39 @@
+package com.example.catalog_service.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReactiveMongoExclusionTest {
+
+    private final ReactiveMongoExclusion exclusion = new ReactiveMongoExclusion();
+
+    @Test
+    @DisplayName("Should exclude the reactive MongoDB auto-configuration when the reactive path is off, keeping other exclusions")
+    void disabled_ShouldExcludeReactiveMongo() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty(ReactiveMongoExclusion.EXCLUDE, "com.example.Other");
+
+        exclusion.postProcessEnvironment(environment, new SpringApplication());
+
+        List<String> excluded = Arrays.asList(environment.getProperty(ReactiveMongoExclusion.EXCLUDE).split(","));
+        assertTrue(excluded.containsAll(ReactiveMongoExclusion.REACTIVE_MONGO));
+        assertTrue(excluded.contains("com.example.Other"));
+    }
+
+    @Test
+    @DisplayName("Should leave the auto-configuration alone when catalog.reactive.enabled is true")
+    void enabled_ShouldNotExclude() {
+        MockEnvironment environment = new MockEnvironment().withProperty("catalog.reactive.enabled", "true");
+
+        exclusion.postProcessEnvironment(environment, new SpringApplication());
+
+        assertNull(environment.getProperty(ReactiveMongoExclusion.EXCLUDE));
+    }
+}
@@ -22,6 +22,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.testcontainers.containers.MongoDBContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -29,9 +30,11 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import java.util.List;
 
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest(properties = {
@@ -143,6 +146,45 @@ public class CatalogControllerIntegTest {
     }
 
 
+    @Test
+    @DisplayName("Should import movies from NDJSON and report invalid rows")
+    void importMovies_Ndjson_ShouldReportRowErrors() throws Exception {
+        String body = objectMapper.writeValueAsString(catalog1) + "\n"
+                + "{not json}\n"
+                + objectMapper.writeValueAsString(catalog2) + "\n"
+                + objectMapper.writeValueAsString(catalog1) + "\n";
+
+        mockMvc.perform(post("/catalog/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(4))
+                .andExpect(jsonPath("$.inserted").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[1].line").value(4))
+                .andExpect(jsonPath("$.errors[1].movieId").value("1L"));
+
+        assertEquals(2, catalogRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should import movies from CSV")
+    void importMovies_Csv_ShouldInsertRows() throws Exception {
+        String body = "movieId,title,genre,releaseYear,description\n"
+                + "10L,\"Title, with comma\",DRAMA,2001,-----\n"
+                + "11L,Title11,NOT_A_GENRE,2002,-----\n";
+
+        mockMvc.perform(post("/catalog/import")
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(3));
+
+        assertEquals("Title, with comma", catalogRepository.findById("10L").orElseThrow().getTitle());
+    }
+
     @Test
     @DisplayName("Should get all movies via GET endpoint")
     void getAll_ShouldReturnAList() throws Exception {
@@ -157,6 +199,59 @@ public class CatalogControllerIntegTest {
                 .andExpect(jsonPath("$[2].movieId").value("3L"));
     }
 
+    @Test
+    @DisplayName("Should page movies with a keyset cursor")
+    void getAllPaged_ShouldReturnPagesByCursor() throws Exception {
+        catalogRepository.saveAll(list);
+
+        mockMvc.perform(get("/catalog/getAll").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].movieId").value("1L"))
+                .andExpect(jsonPath("$.nextCursor").value("2L"));
+
+        mockMvc.perform(get("/catalog/getAll").param("after", "2L").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].movieId").value("3L"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should return only the requested fields")
+    void getAllPaged_WithFields_ShouldProjectMovies() throws Exception {
+        catalogRepository.saveAll(list);
+
+        mockMvc.perform(get("/catalog/getAll")
+                        .param("limit", "2")
+                        .param("fields", "genre,ratingAverage"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].movieId").value("1L"))
+                .andExpect(jsonPath("$.content[0].genre").exists())
+                .andExpect(jsonPath("$.content[0].title").doesNotExist())
+                .andExpect(jsonPath("$.content[0].description").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value("2L"));
+
+        mockMvc.perform(get("/catalog/getAll").param("fields", "budget"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should stream all movies as NDJSON")
+    void streamAll_ShouldWriteOneMoviePerLine() throws Exception {
+        catalogRepository.saveAll(list);
+
+        MvcResult result = mockMvc.perform(get("/catalog/getAll/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(3, body.lines().count());
+    }
+
     @Test
     @DisplayName("Should return catalog by ID via GET endpoint")
     void getById_ShouldReturnCatalog() throws Exception {
@@ -174,6 +269,21 @@ public class CatalogControllerIntegTest {
                 .andExpect(jsonPath("$.title").value("Title1"));
     }
 
+    @Test
+    @DisplayName("Should return several movies in request order and report missing ids")
+    void getByIds_ShouldKeepOrderAndReportMissing() throws Exception {
+        catalogRepository.saveAll(list);
+
+        mockMvc.perform(post("/catalog/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of("3L", "999L", "1L"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.movies.length()").value(2))
+                .andExpect(jsonPath("$.movies[0].movieId").value("3L"))
+                .andExpect(jsonPath("$.movies[1].movieId").value("1L"))
+                .andExpect(jsonPath("$.missing[0]").value("999L"));
+    }
+
     @Test
     @DisplayName("Should update a movie")
     void updateCatalog_ShouldReturnAMovieUpdated() throws Exception {
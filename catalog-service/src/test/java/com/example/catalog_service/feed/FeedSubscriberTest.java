@@ -0,0 +1,111 @@
+package com.example.catalog_service.feed;
+
+import com.example.catalog_service.dtos.CatalogEventDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FeedSubscriberTest {
+
+    private RecordingEmitter emitter;
+    //Ejecuta las tareas de envío solo cuando el test lo pide (simula un cliente lento)
+    private Queue<Runnable> pending;
+    private FeedSubscriber subscriber;
+
+    @BeforeEach
+    void setUp() {
+        emitter = new RecordingEmitter();
+        pending = new ArrayDeque<>();
+        subscriber = new FeedSubscriber(emitter, 3, pending::add, 10L);
+    }
+
+    @Test
+    @DisplayName("Should send queued events in order from a single drain task")
+    void offer_ShouldSendInOrder() {
+        subscriber.offer(CatalogEventDTO.delete("1L", 11L));
+        subscriber.offer(CatalogEventDTO.delete("2L", 12L));
+
+        assertEquals(1, pending.size());
+        runPending();
+
+        assertEquals(2, emitter.sent.size());
+        assertFalse(emitter.completed);
+        assertFalse(subscriber.isClosed());
+    }
+
+    @Test
+    @DisplayName("Should send a reset with the last delivered version and close when the queue overflows")
+    void offer_ShouldResetSlowConsumer() {
+        subscriber.offer(CatalogEventDTO.delete("1L", 11L));
+        runPending();
+
+        for (int i = 0; i < 5; i++) {
+            subscriber.offer(CatalogEventDTO.delete("x" + i, 20L + i));
+        }
+        runPending();
+
+        assertEquals(2, emitter.sent.size());
+        assertTrue(emitter.completed);
+        assertTrue(subscriber.isClosed());
+
+        subscriber.offer(CatalogEventDTO.delete("late", 99L));
+        runPending();
+        assertEquals(2, emitter.sent.size());
+    }
+
+    @Test
+    @DisplayName("Should skip the heartbeat when events are already pending")
+    void heartbeat_ShouldNotQueueBehindEvents() {
+        subscriber.offer(CatalogEventDTO.delete("1L", 11L));
+        subscriber.heartbeat();
+        runPending();
+        assertEquals(1, emitter.sent.size());
+
+        subscriber.heartbeat();
+        runPending();
+        assertEquals(2, emitter.sent.size());
+    }
+
+    @Test
+    @DisplayName("Should drop events at or below a version it already queued")
+    void offer_ShouldSkipAlreadyQueuedVersions() {
+        subscriber.offer(CatalogEventDTO.delete("old", 10L));
+        subscriber.offer(CatalogEventDTO.delete("1L", 11L));
+        subscriber.offer(CatalogEventDTO.delete("2L", 12L));
+        subscriber.offer(CatalogEventDTO.delete("1L", 11L));
+        runPending();
+
+        assertEquals(2, emitter.sent.size());
+    }
+
+    private void runPending() {
+        Runnable task;
+        while ((task = pending.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<Set<DataWithMediaType>> sent = new ArrayList<>();
+        private boolean completed = false;
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            sent.add(builder.build());
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.dtos.CatalogChangesDTO;
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.models.Catalog;
+import com.example.catalog_service.service.CatalogChangesService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CatalogIndexSyncTest {
+
+    private MongoTemplate mongoTemplate;
+    private CatalogQueryIndex queryIndex;
+    private CatalogIndexSync sync;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        CatalogChangesService catalogChangesService = mock(CatalogChangesService.class);
+        when(catalogChangesService.findChanges(anyLong(), anyInt()))
+                .thenReturn(new CatalogChangesDTO(List.of(), List.of(), 0, false));
+        queryIndex = new CatalogQueryIndex();
+        sync = new CatalogIndexSync();
+        ReflectionTestUtils.setField(sync, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(sync, "catalogChangesService", catalogChangesService);
+        ReflectionTestUtils.setField(sync, "catalogQueryIndex", queryIndex);
+        ReflectionTestUtils.setField(sync, "indexes", List.<CatalogIndex>of(queryIndex));
+        ReflectionTestUtils.setField(sync, "retryBackoff", Duration.ZERO);
+        ReflectionTestUtils.setField(sync, "retryMaxBackoff", Duration.ofSeconds(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.setField(sync, "snapshotEnabled", false);
+        sync.writeSnapshotOnShutdown();
+    }
+
+    @Test
+    @DisplayName("Should retry the initial load from the scheduled sync after MongoDB fails")
+    void syncRemoteChanges_ShouldRetryFailedLoad() throws InterruptedException {
+        when(mongoTemplate.stream(any(Query.class), eq(Catalog.class)))
+                .thenThrow(new DataAccessResourceFailureException("mongo down"))
+                .thenAnswer(invocation -> Stream.of(movie("1L")));
+
+        sync.warmUp();
+        assertFalse(sync.isLoaded());
+
+        sync.syncRemoteChanges();
+
+        assertTrue(awaitReady());
+        assertEquals(1, queryIndex.all().size());
+    }
+
+    @Test
+    @DisplayName("Should keep retrying a background rebuild until MongoDB answers")
+    void rebuildInBackground_ShouldRetryUntilMongoAnswers() throws InterruptedException {
+        when(mongoTemplate.stream(any(Query.class), eq(Catalog.class)))
+                .thenThrow(new DataAccessResourceFailureException("mongo down"))
+                .thenThrow(new DataAccessResourceFailureException("mongo still down"))
+                .thenAnswer(invocation -> Stream.of(movie("1L")));
+
+        sync.rebuildInBackground();
+        for (int i = 0; i < 100 && !sync.isReady(); i++) {
+            sync.syncRemoteChanges();
+            Thread.sleep(50);
+        }
+
+        assertTrue(sync.isReady());
+        verify(mongoTemplate, times(3)).stream(any(Query.class), eq(Catalog.class));
+    }
+
+    private boolean awaitReady() throws InterruptedException {
+        for (int i = 0; i < 100 && !sync.isReady(); i++) {
+            Thread.sleep(50);
+        }
+        return sync.isReady();
+    }
+
+    private static Catalog movie(String movieId) {
+        Catalog movie = new Catalog();
+        movie.setMovieId(movieId);
+        movie.setTitle("Movie " + movieId);
+        movie.setGenre(Genre.ACTION);
+        movie.setReleaseYear(2000);
+        movie.setRatingAverage(4.0);
+        return movie;
+    }
+}
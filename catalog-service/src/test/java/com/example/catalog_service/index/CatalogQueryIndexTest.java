@@ -0,0 +1,90 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.dtos.CatalogFilter;
+import com.example.catalog_service.dtos.CatalogQueryResultDTO;
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.models.Catalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogQueryIndexTest {
+
+    private CatalogQueryIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CatalogQueryIndex();
+        index.upsert(movie("1L", Genre.ACTION, 1994, 4.4));
+        index.upsert(movie("2L", Genre.ACTION, 2001, 4.9));
+        index.upsert(movie("3L", Genre.COMEDY, 1999, 3.9));
+        index.upsert(movie("4L", Genre.DRAMA, 1995, 4.6));
+        index.upsert(movie("5L", Genre.COMEDY, 1990, 2.0));
+    }
+
+    @Test
+    @DisplayName("Should intersect genres, year range and minimum rating, sorted by rating")
+    void query_ShouldCombineFilters() {
+        CatalogFilter filter = new CatalogFilter();
+        filter.setGenres(List.of(Genre.ACTION, Genre.COMEDY, Genre.DRAMA));
+        filter.setYearFrom(1990);
+        filter.setYearTo(1999);
+        filter.setMinRating(3.0);
+
+        CatalogQueryResultDTO result = index.query(filter, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "ratingAverage")));
+
+        assertEquals(3, result.getTotal());
+        assertEquals(List.of("4L", "1L", "3L"), ids(result));
+    }
+
+    @Test
+    @DisplayName("Should page results sorted by release year")
+    void query_ShouldPageByReleaseYear() {
+        CatalogQueryResultDTO result = index.query(new CatalogFilter(), PageRequest.of(1, 2, Sort.by("releaseYear")));
+
+        assertEquals(5, result.getTotal());
+        assertEquals(List.of("4L", "3L"), ids(result));
+    }
+
+    @Test
+    @DisplayName("Should reflect score changes, updates and removals")
+    void writes_ShouldKeepIndexConsistent() {
+        index.updateScore("5L", 5.0);
+        index.upsert(movie("1L", Genre.DRAMA, 1994, 4.4));
+        index.remove("2L");
+
+        CatalogFilter filter = new CatalogFilter();
+        filter.setMinRating(4.5);
+        assertEquals(List.of("5L", "4L"), ids(index.query(filter, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "ratingAverage")))));
+
+        CatalogFilter drama = new CatalogFilter();
+        drama.setGenres(List.of(Genre.DRAMA));
+        assertEquals(2, index.query(drama, PageRequest.of(0, 10)).getTotal());
+
+        //El id denso de 2L se reutiliza
+        index.upsert(movie("6L", Genre.ACTION, 2001, 1.0));
+        CatalogFilter action = new CatalogFilter();
+        action.setGenres(List.of(Genre.ACTION));
+        assertEquals(List.of("6L"), ids(index.query(action, PageRequest.of(0, 10))));
+    }
+
+    private static List<String> ids(CatalogQueryResultDTO result) {
+        return result.getContent().stream().map(Catalog::getMovieId).toList();
+    }
+
+    private static Catalog movie(String movieId, Genre genre, int releaseYear, double ratingAverage) {
+        Catalog catalog = new Catalog();
+        catalog.setMovieId(movieId);
+        catalog.setTitle("Title" + movieId);
+        catalog.setGenre(genre);
+        catalog.setReleaseYear(releaseYear);
+        catalog.setRatingAverage(ratingAverage);
+        return catalog;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.models.Catalog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Should read back every field written, including nulls and non-ASCII titles")
+    void writeAndRead_ShouldRoundTrip() throws IOException {
+        Path path = dir.resolve("catalog.snapshot");
+        Catalog full = movie("1L", "Amélie", Genre.COMEDY, 2001, 4.5, 7L);
+        Catalog partial = movie("2L", null, null, null, null, null);
+
+        CatalogSnapshot.write(path, 42L, List.of(full, partial));
+        CatalogSnapshot snapshot = CatalogSnapshot.read(path);
+
+        assertEquals(42L, snapshot.getVersion());
+        assertEquals(2, snapshot.getMovies().size());
+        assertSameMovie(full, snapshot.getMovies().get(0));
+        assertSameMovie(partial, snapshot.getMovies().get(1));
+        assertTrue(snapshot.getWrittenAt() > 0);
+    }
+
+    @Test
+    @DisplayName("Should reject a truncated or modified file")
+    void read_ShouldRejectCorruptFile() throws IOException {
+        Path path = dir.resolve("catalog.snapshot");
+        CatalogSnapshot.write(path, 1L, List.of(movie("1L", "Title1", Genre.ACTION, 1994, 4.4, 1L)));
+        byte[] bytes = Files.readAllBytes(path);
+
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> CatalogSnapshot.read(path));
+
+        Files.write(path, Arrays.copyOf(bytes, 20));
+        assertThrows(IOException.class, () -> CatalogSnapshot.read(path));
+    }
+
+    //Catalog no define equals
+    private static void assertSameMovie(Catalog expected, Catalog actual) {
+        assertEquals(expected.getMovieId(), actual.getMovieId());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getGenre(), actual.getGenre());
+        assertEquals(expected.getReleaseYear(), actual.getReleaseYear());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getRatingAverage(), actual.getRatingAverage());
+        assertEquals(expected.getVersion(), actual.getVersion());
+    }
+
+    private static Catalog movie(String movieId, String title, Genre genre, Integer year, Double rating, Long version) {
+        Catalog catalog = new Catalog();
+        catalog.setMovieId(movieId);
+        catalog.setTitle(title);
+        catalog.setGenre(genre);
+        catalog.setReleaseYear(year);
+        catalog.setDescription(title == null ? null : "-----");
+        catalog.setRatingAverage(rating);
+        catalog.setVersion(version);
+        return catalog;
+    }
+}
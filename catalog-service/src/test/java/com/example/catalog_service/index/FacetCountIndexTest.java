@@ -0,0 +1,61 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.dtos.CatalogFacetsDTO;
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.models.Catalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FacetCountIndexTest {
+
+    private FacetCountIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FacetCountIndex();
+        index.upsert(movie("1L", Genre.ACTION, 1994, 4.4));
+        index.upsert(movie("2L", Genre.ACTION, 2001, 5.0));
+        index.upsert(movie("3L", Genre.COMEDY, 1999, 3.9));
+    }
+
+    @Test
+    @DisplayName("Should count movies per genre, decade and rating bucket")
+    void snapshot_ShouldCountEveryFacet() {
+        CatalogFacetsDTO facets = index.snapshot();
+
+        assertEquals(3, facets.getTotal());
+        assertEquals(Map.of(Genre.ACTION, 2L, Genre.COMEDY, 1L), facets.getGenres());
+        assertEquals(Map.of(1990, 2L, 2000, 1L), facets.getDecades());
+        assertEquals(Map.of("3-4", 1L, "4-5", 2L), facets.getRatings());
+    }
+
+    @Test
+    @DisplayName("Should move a movie between buckets when it changes and drop it when removed")
+    void updates_ShouldMoveCounts() {
+        index.updateScore("3L", 2.5);
+        index.upsert(movie("1L", Genre.DRAMA, 1994, 4.4));
+        index.remove("2L");
+
+        CatalogFacetsDTO facets = index.snapshot();
+
+        assertEquals(2, facets.getTotal());
+        assertEquals(Map.of(Genre.DRAMA, 1L, Genre.COMEDY, 1L), facets.getGenres());
+        assertEquals(Map.of(1990, 2L), facets.getDecades());
+        assertEquals(Map.of("2-3", 1L, "4-5", 1L), facets.getRatings());
+    }
+
+    private static Catalog movie(String movieId, Genre genre, int releaseYear, double ratingAverage) {
+        Catalog catalog = new Catalog();
+        catalog.setMovieId(movieId);
+        catalog.setTitle("Title" + movieId);
+        catalog.setGenre(genre);
+        catalog.setReleaseYear(releaseYear);
+        catalog.setRatingAverage(ratingAverage);
+        return catalog;
+    }
+}
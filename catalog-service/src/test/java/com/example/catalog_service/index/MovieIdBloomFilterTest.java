@@ -0,0 +1,47 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.models.Catalog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieIdBloomFilterTest {
+
+    @Test
+    @DisplayName("Should never reject an added id and keep false positives near the configured rate")
+    void mightContain_ShouldHaveNoFalseNegatives() {
+        MovieIdBloomFilter filter = new MovieIdBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.upsert(movie("m" + i));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("m" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("unknown" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("Should forget every id when cleared")
+    void clear_ShouldEmptyTheFilter() {
+        MovieIdBloomFilter filter = new MovieIdBloomFilter(1_000, 0.01);
+        filter.upsert(movie("1L"));
+
+        filter.clear();
+
+        assertFalse(filter.mightContain("1L"));
+    }
+
+    private static Catalog movie(String movieId) {
+        Catalog catalog = new Catalog();
+        catalog.setMovieId(movieId);
+        return catalog;
+    }
+}
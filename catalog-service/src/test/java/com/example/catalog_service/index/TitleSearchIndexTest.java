@@ -0,0 +1,82 @@
+package com.example.catalog_service.index;
+
+import com.example.catalog_service.dtos.CatalogDTO;
+import com.example.catalog_service.enums.Genre;
+import com.example.catalog_service.models.Catalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TitleSearchIndexTest {
+
+    private TitleSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TitleSearchIndex();
+        index.upsert(movie("1L", "Star Wars"));
+        index.upsert(movie("2L", "Café Society"));
+        index.upsert(movie("3L", "Starship Troopers"));
+    }
+
+    @Test
+    @DisplayName("Should match word prefixes ignoring case and accents")
+    void search_ShouldIgnoreCaseAndAccents() {
+        assertEquals(List.of("2L"), ids(index.search("CAFE", 10)));
+        assertEquals(List.of("2L"), ids(index.search("soc", 10)));
+        assertEquals(2, index.search("star", 10).size());
+        assertEquals(List.of("1L"), ids(index.search("star wa", 10)));
+    }
+
+    @Test
+    @DisplayName("Should build a MongoDB regex with the same word and accent rules as the index")
+    void prefixRegex_ShouldMatchLikeTheIndex() {
+        assertTrue(finds("ame", "Amélie"));
+        assertTrue(finds("ame", "AME\u0301LIE"));
+        assertTrue(finds("soc", "Café-Society"));
+        assertTrue(finds("lie", "Amé lie"));
+        assertFalse(finds("lie", "Amélie"));
+        assertFalse(finds("lie", "Ame\u0301lie"));
+    }
+
+    private static boolean finds(String term, String title) {
+        return Pattern.compile(TitleSearchIndex.prefixRegex(term)).matcher(title).find();
+    }
+
+    @Test
+    @DisplayName("Should follow title updates and deletes")
+    void upsertAndRemove_ShouldKeepIndexInSync() {
+        index.upsert(movie("1L", "The Empire Strikes Back"));
+        assertEquals(List.of("3L"), ids(index.search("star", 10)));
+        assertEquals(List.of("1L"), ids(index.search("empire", 10)));
+
+        index.remove("1L");
+        assertTrue(index.search("empire", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should stop at the requested limit")
+    void search_ShouldRespectLimit() {
+        assertEquals(1, index.search("star", 1).size());
+        assertTrue(index.search("   ", 10).isEmpty());
+    }
+
+    private static List<String> ids(List<CatalogDTO> results) {
+        return results.stream().map(CatalogDTO::getMovieId).toList();
+    }
+
+    private static Catalog movie(String movieId, String title) {
+        Catalog catalog = new Catalog();
+        catalog.setMovieId(movieId);
+        catalog.setTitle(title);
+        catalog.setGenre(Genre.DRAMA);
+        catalog.setReleaseYear(2000);
+        catalog.setRatingAverage(0.0);
+        return catalog;
+    }
+}
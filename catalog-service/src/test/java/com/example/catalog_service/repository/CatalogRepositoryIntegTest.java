@@ -174,6 +174,32 @@ public class CatalogRepositoryIntegTest {
         assertTrue(catalogRepository.findById(catalog1.getMovieId()).isEmpty());
     }
 
+    @Test
+    @DisplayName("Should find movies whose title has a word starting with every term")
+    void findByTitleWords_ShouldMatchWordPrefixes() {
+        catalog2.setTitle("Star Wars");
+        catalog3.setTitle("Lone Star");
+        catalogRepository.saveAll(list);
+
+        List<Catalog> found = catalogRepository.findByTitleWords(List.of("star", "wa"), 10);
+
+        assertEquals(1, found.size());
+        assertEquals("2L", found.get(0).getMovieId());
+        assertEquals(2, catalogRepository.findByTitleWords(List.of("sta"), 10).size());
+        assertTrue(catalogRepository.findByTitleWords(List.of("ars"), 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should ignore accents like TitleSearchIndex")
+    void findByTitleWords_ShouldIgnoreAccents() {
+        catalog2.setTitle("Amélie");
+        catalog3.setTitle("Cafe\u0301 Society");
+        catalogRepository.saveAll(list);
+
+        assertEquals("2L", catalogRepository.findByTitleWords(List.of("ame"), 10).get(0).getMovieId());
+        assertEquals("3L", catalogRepository.findByTitleWords(List.of("cafe", "soc"), 10).get(0).getMovieId());
+    }
+
 
 
 }
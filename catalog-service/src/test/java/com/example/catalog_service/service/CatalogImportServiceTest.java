@@ -0,0 +1,103 @@
+package com.example.catalog_service.service;
+
+import com.example.catalog_service.cache.NegativeLookupCache;
+import com.example.catalog_service.dtos.ImportReportDTO;
+import com.example.catalog_service.index.CatalogIndexSync;
+import com.example.catalog_service.models.Catalog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class CatalogImportServiceTest {
+
+    private final List<Catalog> inserted = new ArrayList<>();
+    private BulkOperations bulk;
+    private CatalogIndexSync catalogIndexSync;
+    private CatalogImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Catalog.class)).thenReturn(bulk);
+        //El lote se vacía después de escribirlo: se copia lo que llega al insert
+        when(bulk.insert(anyList())).thenAnswer(invocation -> {
+            inserted.addAll(invocation.getArgument(0));
+            return bulk;
+        });
+        CatalogChangesService catalogChangesService = mock(CatalogChangesService.class);
+        when(catalogChangesService.stamp(anyList(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        catalogIndexSync = mock(CatalogIndexSync.class);
+
+        importService = new CatalogImportService();
+        ReflectionTestUtils.setField(importService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(importService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(importService, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(importService, "catalogIndexSync", catalogIndexSync);
+        ReflectionTestUtils.setField(importService, "catalogChangesService", catalogChangesService);
+        ReflectionTestUtils.setField(importService, "negativeLookupCache", mock(NegativeLookupCache.class));
+        ReflectionTestUtils.setField(importService, "batchSize", 1000);
+        ReflectionTestUtils.setField(importService, "maxErrors", 1000);
+    }
+
+    @Test
+    @DisplayName("Should report CSV rows without movieId as errors and import the rest")
+    void importCsv_ShouldRejectBlankMovieId() throws IOException {
+        String csv = """
+                movieId,title,genre,releaseYear,description
+                ,No id,ACTION,1999,missing id
+                1L,Title1,ACTION,1999,ok
+                """;
+
+        ImportReportDTO report = importService.importCsv(input(csv));
+
+        assertEquals(2, report.getReceived());
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getFailed());
+        assertEquals(2, report.getErrors().get(0).getLine());
+        assertEquals("movieId: is required", report.getErrors().get(0).getMessage());
+        assertEquals(List.of("1L"), inserted.stream().map(Catalog::getMovieId).toList());
+        verify(catalogIndexSync).refresh(argThat(movies -> movies.size() == 1
+                && "1L".equals(movies.iterator().next().getMovieId())));
+    }
+
+    @Test
+    @DisplayName("Should report NDJSON null lines and objects without movieId as errors")
+    void importNdjson_ShouldRejectNullRowsAndMissingMovieId() throws IOException {
+        String ndjson = """
+                null
+                {"title":"No id","genre":"ACTION","releaseYear":1999}
+                {"movieId":"1L","title":"Title1","genre":"ACTION","releaseYear":1999}
+                """;
+
+        ImportReportDTO report = importService.importNdjson(input(ndjson));
+
+        assertEquals(3, report.getReceived());
+        assertEquals(1, report.getInserted());
+        assertEquals(2, report.getFailed());
+        assertEquals(List.of(1L, 2L), report.getErrors().stream().map(ImportReportDTO.RowError::getLine).toList());
+        assertEquals(List.of("1L"), inserted.stream().map(Catalog::getMovieId).toList());
+    }
+
+    private static ByteArrayInputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -3,7 +3,10 @@ package com.example.catalog_service.service;
 import com.example.catalog_service.config.CacheTestConfig;
 import com.example.catalog_service.config.MongoTestConfig;
 import com.example.catalog_service.config.RedisConfig;
+import com.example.catalog_service.dtos.CatalogChangesDTO;
+import com.example.catalog_service.dtos.CatalogFacetsDTO;
 import com.example.catalog_service.dtos.CatalogDTO;
+import com.example.catalog_service.dtos.CatalogPageDTO;
 import com.example.catalog_service.dtos.CatalogUpdateDto;
 import com.example.catalog_service.dtos.RatingScoreDTO;
 import com.example.catalog_service.enums.Genre;
@@ -20,6 +23,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
@@ -67,6 +72,9 @@ public class CatalogServiceIntegTest {
     @Autowired
     private CatalogRepository catalogRepository;
 
+    @Autowired
+    private CatalogChangesService catalogChangesService;
+
     @Autowired
     private CatalogMapper catalogMapper;
 
@@ -168,6 +176,16 @@ public class CatalogServiceIntegTest {
         assertEquals("Movie with id: 999L not found.", exception.getMessage());
     }
 
+    @Test
+    @DisplayName("It should find a movie created after a not found lookup of the same id")
+    void findMovieById_AfterCreate_ShouldNotReturnCachedNotFound() {
+        assertThrows(MovieNotFound.class, () -> catalogService.findMovieById("1L"));
+
+        catalogService.createMovies(List.of(catalog1));
+
+        assertEquals("Title1", catalogService.findMovieById("1L").getTitle());
+    }
+
     @Test
     @DisplayName("It should return all movies from catalog")
     void findAll_ShouldReturnList(){
@@ -270,6 +288,65 @@ public class CatalogServiceIntegTest {
 
 
 
+    @Test
+    @DisplayName("Should update many scores with one bulk write")
+    void changeScores_ShouldUpdateAllMovies() {
+        catalogRepository.saveAll(list);
+
+        RatingScoreDTO second = new RatingScoreDTO();
+        second.setMovieId("3L");
+        second.setRatingAverage(5.0);
+        RatingScoreDTO unknown = new RatingScoreDTO();
+        unknown.setMovieId("999L");
+        unknown.setRatingAverage(1.0);
+
+        int matched = catalogService.changeScores(List.of(ratingScoreDTO, second, unknown));
+
+        assertEquals(2, matched);
+        assertEquals(4.5, catalogRepository.findById("1L").orElseThrow().getRatingAverage());
+        assertEquals(5.0, catalogRepository.findById("3L").orElseThrow().getRatingAverage());
+        assertEquals("3L", catalogService.findTop(1).get(0).getMovieId());
+    }
+
+    @Test
+    @DisplayName("Should return only the changes after a version, including deletes")
+    void findChanges_ShouldReturnUpsertsAndDeletesSinceVersion() {
+        catalogService.createMovies(list);
+        CatalogChangesDTO initial = catalogChangesService.findChanges(0, 100);
+        assertEquals(3, initial.getUpserts().size());
+
+        catalogService.changeScore(ratingScoreDTO);
+        catalogService.removeMovieById("2L");
+
+        CatalogChangesDTO changes = catalogChangesService.findChanges(initial.getVersion(), 100);
+        assertEquals(List.of("1L"), changes.getUpserts().stream().map(Catalog::getMovieId).toList());
+        assertEquals(List.of("2L"), changes.getDeleted());
+        assertTrue(changes.getVersion() > initial.getVersion());
+        assertFalse(changes.isHasMore());
+
+        CatalogChangesDTO firstOnly = catalogChangesService.findChanges(initial.getVersion(), 1);
+        assertEquals(1, firstOnly.getUpserts().size());
+        assertTrue(firstOnly.isHasMore());
+    }
+
+    @Test
+    @DisplayName("Should not move past a version whose write is still in progress")
+    void findChanges_ShouldStopBelowPendingWrites() {
+        catalogService.createMovies(list);
+        long before = catalogChangesService.findChanges(0, 100).getVersion();
+
+        CatalogChangesDTO duringWrite = catalogChangesService.withVersion(pending -> {
+            //Una escritura posterior termina mientras la primera sigue en curso
+            catalogService.changeScore(ratingScoreDTO);
+            return catalogChangesService.findChanges(before, 100);
+        });
+        assertTrue(duringWrite.getUpserts().isEmpty());
+        assertEquals(before, duringWrite.getVersion());
+
+        CatalogChangesDTO afterWrite = catalogChangesService.findChanges(before, 100);
+        assertEquals(List.of("1L"), afterWrite.getUpserts().stream().map(Catalog::getMovieId).toList());
+    }
+
     @Test
     @DisplayName("Should find a list of movies by genre")
     void findByGenre_ShouldReturnList(){
@@ -288,6 +365,20 @@ public class CatalogServiceIntegTest {
     }
 
 
+    @Test
+    @DisplayName("Should page movies by genre sorted by rating in MongoDB")
+    void findByGenrePaged_ShouldReturnSortedSlice(){
+        catalogRepository.saveAll(list);
+
+        CatalogPageDTO page = catalogService.findByGenre(genres,
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "ratingAverage")));
+
+        assertEquals(2, page.getContent().size());
+        assertTrue(page.isHasNext());
+        assertEquals(4.4, page.getContent().get(0).getRatingAverage());
+        assertEquals(4.3, page.getContent().get(1).getRatingAverage());
+    }
+
     @Test
     @DisplayName("Should return a list with the top 3 from catalog")
     void  findTop3_ShouldReturnList(){
@@ -306,6 +397,42 @@ public class CatalogServiceIntegTest {
     }
 
 
+    @Test
+    @DisplayName("Should move a movie in the top ranking when its score changes")
+    void findTop_ShouldReflectScoreChanges(){
+        catalogRepository.saveAll(list);
+
+        ratingScoreDTO.setMovieId(catalog3.getMovieId());
+        ratingScoreDTO.setRatingAverage(5.0);
+        catalogService.changeScore(ratingScoreDTO);
+
+        List<Catalog> top = catalogService.findTop(2);
+        assertEquals(2, top.size());
+        assertEquals("3L", top.get(0).getMovieId());
+        assertEquals("1L", top.get(1).getMovieId());
+
+        List<Catalog> topAction = catalogService.findTop(Genre.ACTION, 5);
+        assertEquals(1, topAction.size());
+        assertEquals("2L", topAction.get(0).getMovieId());
+    }
+
+    @Test
+    @DisplayName("Should count facets with the aggregation and keep the in-memory counts in sync")
+    void findFacets_ShouldMatchAggregation() {
+        catalogRepository.saveAll(list);
+
+        CatalogFacetsDTO aggregated = catalogRepository.countFacets();
+        assertEquals(3, aggregated.getTotal());
+        assertEquals(Map.of(1990, 3L), aggregated.getDecades());
+        assertEquals(Map.of("3-4", 1L, "4-5", 2L), aggregated.getRatings());
+
+        catalogService.removeMovieById("3L");
+
+        CatalogFacetsDTO facets = catalogService.findFacets();
+        assertEquals(Map.of(Genre.ANIMATION, 1L, Genre.ACTION, 1L), facets.getGenres());
+        assertEquals(Map.of("4-5", 2L), facets.getRatings());
+    }
+
     @Test
     @DisplayName("Should group movies by genre")
     void groupByGenre_ShouldReturnAList(){
@@ -0,0 +1,73 @@
+package com.example.catalog_service.service;
+
+import com.example.catalog_service.cache.NegativeLookupCache;
+import com.example.catalog_service.cache.ReactiveCacheOperations;
+import com.example.catalog_service.index.CatalogIndexSync;
+import com.example.catalog_service.models.Catalog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ReactiveCatalogServiceTest {
+
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+    private ReactiveCacheOperations reactiveCache;
+    private ReactiveCatalogService service;
+
+    @BeforeEach
+    void setUp() {
+        reactiveMongoTemplate = mock(ReactiveMongoTemplate.class);
+        reactiveCache = mock(ReactiveCacheOperations.class);
+        when(reactiveCache.get(anyString(), anyString(), eq(Catalog.class))).thenReturn(Mono.empty());
+        when(reactiveCache.contains(anyString(), anyString())).thenReturn(Mono.just(false));
+        when(reactiveCache.putIfAbsent(anyString(), anyString(), any())).thenReturn(Mono.just(true));
+
+        service = new ReactiveCatalogService();
+        ReflectionTestUtils.setField(service, "reactiveMongoTemplate", reactiveMongoTemplate);
+        ReflectionTestUtils.setField(service, "reactiveCache", reactiveCache);
+        ReflectionTestUtils.setField(service, "catalogIndexSync", mock(CatalogIndexSync.class));
+    }
+
+    @Test
+    @DisplayName("Should cache a movie read from MongoDB without overwriting a newer value")
+    void findMovieById_ShouldPutIfAbsent() {
+        Catalog movie = new Catalog();
+        movie.setMovieId("1L");
+        when(reactiveMongoTemplate.findById("1L", Catalog.class)).thenReturn(Mono.just(movie));
+
+        assertSame(movie, service.findMovieById("1L").block());
+
+        verify(reactiveCache).putIfAbsent("movies", "1L", movie);
+        verify(reactiveCache, never()).putIfAbsent(eq(NegativeLookupCache.MISSING_MOVIES), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should remember an id MongoDB does not have, like the blocking path")
+    void findMovieById_ShouldRememberMissingMovie() {
+        when(reactiveMongoTemplate.findById("9L", Catalog.class)).thenReturn(Mono.empty());
+
+        assertNull(service.findMovieById("9L").block());
+
+        verify(reactiveCache).putIfAbsent(NegativeLookupCache.MISSING_MOVIES, "9L", Boolean.TRUE);
+    }
+
+    @Test
+    @DisplayName("Should answer a cached miss without reading MongoDB")
+    void findMovieById_ShouldSkipMongo_WhenKnownMissing() {
+        when(reactiveCache.contains(NegativeLookupCache.MISSING_MOVIES, "9L")).thenReturn(Mono.just(true));
+
+        assertNull(service.findMovieById("9L").block());
+
+        verifyNoInteractions(reactiveMongoTemplate);
+        verify(reactiveCache, never()).putIfAbsent(anyString(), anyString(), any());
+    }
+}
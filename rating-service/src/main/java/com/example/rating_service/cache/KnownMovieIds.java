@@ -0,0 +1,119 @@
+package com.example.rating_service.cache;
+
+import com.example.rating_service.client.CatalogClient;
+import com.example.rating_service.dtos.CatalogChangesDTO;
+import com.example.rating_service.dtos.CatalogDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Copia local de los movieId que existen en catalog-service, para validar una película sin llamarlo.
+//Se carga al arrancar desde /catalog/changes?since=0 y después se mantiene con el mismo delta sync cada
+//sync-interval (altas agregan el id, tombstones lo quitan).
+//Mientras no terminó la primera carga, o si un id no está (película creada después del último sync),
+//se pregunta a catalog-service como antes; si resulta que existe, se agrega y se cuenta la corrección.
+//Un id borrado hace menos de sync-interval todavía figura como existente.
+@Component
+public class KnownMovieIds {
+    private static final Logger log = LoggerFactory.getLogger(KnownMovieIds.class);
+
+    private final CatalogClient catalogClient;
+    private final int pageSize;
+    private final Counter corrections;
+    private final Counter fallbacks;
+
+    //Se reemplaza entero al terminar la carga inicial
+    private volatile Set<String> movieIds = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+    private volatile long version;
+
+    public KnownMovieIds(CatalogClient catalogClient,
+                         MeterRegistry meterRegistry,
+                         @Value("${rating.movie-filter.page-size:1000}") int pageSize) {
+        this.catalogClient = catalogClient;
+        this.pageSize = pageSize;
+        this.corrections = Counter.builder("rating.movie.filter.corrections")
+                .description("Movies missing from the local filter that catalog-service reported as existing")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("rating.movie.filter.fallbacks")
+                .description("Movie checks answered by catalog-service instead of the local filter")
+                .register(meterRegistry);
+        meterRegistry.gauge("rating.movie.filter.size", this, filter -> filter.movieIds.size());
+    }
+
+    //true si la película existe: desde el filtro local, o desde catalog-service si no la conoce
+    public boolean exists(String movieId) {
+        if (ready && movieIds.contains(movieId)) {
+            return true;
+        }
+        fallbacks.increment();
+        CatalogDTO movie = catalogClient.getById(movieId);
+        if (movie == null) {
+            return false;
+        }
+        if (ready) {
+            corrections.increment();
+            movieIds.add(movieId);
+        }
+        return true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    //En segundo plano: si catalog-service no responde, se reintenta en el próximo sync
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        sync();
+    }
+
+    @Scheduled(fixedDelayString = "${rating.movie-filter.sync-interval:5s}",
+            initialDelayString = "${rating.movie-filter.sync-interval:5s}")
+    public synchronized void sync() {
+        try {
+            if (ready) {
+                //La version que devuelve /catalog/changes es segura: se retoma exactamente desde ahí
+                applyChanges(movieIds, version);
+            } else {
+                Set<String> loaded = ConcurrentHashMap.newKeySet();
+                applyChanges(loaded, 0);
+                movieIds = loaded;
+                ready = true;
+                log.info("Loaded {} movie ids from catalog-service", loaded.size());
+            }
+        } catch (RuntimeException ex) {
+            log.debug("Could not sync movie ids from catalog-service: {}", ex.getMessage());
+        }
+    }
+
+    //Pide páginas de cambios hasta alcanzar la última version
+    private void applyChanges(Set<String> target, long since) {
+        CatalogChangesDTO changes;
+        do {
+            changes = catalogClient.getChanges(since, pageSize);
+            if (changes == null) {
+                throw new IllegalStateException("empty response from /catalog/changes");
+            }
+            if (changes.getUpserts() != null) {
+                changes.getUpserts().forEach(movie -> target.add(movie.getMovieId()));
+            }
+            if (changes.getDeleted() != null) {
+                changes.getDeleted().forEach(target::remove);
+            }
+            since = changes.getVersion();
+            version = Math.max(version, since);
+        } while (changes.isHasMore());
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.rating_service.client;
 
+import com.example.rating_service.dtos.CatalogChangesDTO;
 import com.example.rating_service.dtos.CatalogDTO;
 import com.example.rating_service.dtos.RatingScoreDTO;
 import org.springframework.cloud.openfeign.FeignClient;
@@ -7,6 +8,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+import java.util.Map;
 
 @FeignClient(name = "catalog-service", url = "http://localhost:8081/catalog")
 public interface CatalogClient {
@@ -16,4 +21,12 @@ public interface CatalogClient {
     @PutMapping("/updateScore")
     RatingScoreDTO updateScore(@RequestBody RatingScoreDTO dto);
 
+    //Un solo bulk write en catalog-service para muchas películas
+    @PutMapping("/updateScores")
+    Map<String, Object> updateScores(@RequestBody List<RatingScoreDTO> dtos);
+
+    //Delta sync: películas creadas/modificadas y borradas después de la version since
+    @GetMapping("/changes")
+    CatalogChangesDTO getChanges(@RequestParam("since") long since, @RequestParam("limit") int limit);
+
 }
@@ -0,0 +1,43 @@
+package com.example.rating_service.config;
+
+import com.example.rating_service.models.MovieRatingAggregate;
+import com.example.rating_service.models.Rating;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.scheduling.annotation.Async;
+
+@Configuration
+public class MongoIndexConfig {
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexConfig.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    //Crea los índices declarados en los documentos (@CompoundIndex, @Indexed).
+    //Se hace en segundo plano al arrancar para no bloquear el inicio si MongoDB tarda en responder.
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        try {
+            ensureIndexes(MovieRatingAggregate.class);
+            ensureIndexes(Rating.class);
+        } catch (DataAccessException ex) {
+            log.warn("Could not create rating indexes: {}", ex.getMessage());
+        }
+    }
+
+    private void ensureIndexes(Class<?> type) {
+        IndexOperations indexOps = mongoTemplate.indexOps(type);
+        IndexResolver.create(mongoTemplate.getConverter().getMappingContext())
+                .resolveIndexFor(type)
+                .forEach(indexOps::ensureIndex);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.rating_service.config;
+
+import com.example.rating_service.ingest.RatingBatchWriter;
+import com.example.rating_service.ingest.RatingWriteBehindQueue;
+import com.example.rating_service.models.MovieRatingAggregate;
+import com.example.rating_service.service.RatingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Ingesta write-behind de /rating/addAndCalculateAverage (rating.ingest.mode=write-behind).
+ * Con el modo sync (por defecto) no se crea la cola y cada rating se guarda en su propio request.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rating.ingest.mode", havingValue = "write-behind")
+public class RatingIngestConfig {
+
+    @Bean(destroyMethod = "close")
+    public RatingWriteBehindQueue ratingWriteBehindQueue(RatingBatchWriter writer,
+                                                         CacheManager cacheManager,
+                                                         MeterRegistry meterRegistry,
+                                                         @Value("${rating.ingest.queue-capacity:10000}") int capacity,
+                                                         @Value("${rating.ingest.batch-size:500}") int batchSize,
+                                                         @Value("${rating.ingest.max-delay:20ms}") Duration maxDelay,
+                                                         @Value("${rating.ingest.durability:flush}") String durability) {
+        return new RatingWriteBehindQueue(capacity, batchSize, maxDelay, "enqueue".equalsIgnoreCase(durability),
+                batch -> {
+                    Map<String, MovieRatingAggregate> aggregates = writer.write(batch);
+                    clear(cacheManager, "allRatings");
+                    Cache firstPages = cacheManager.getCache(RatingService.FIRST_PAGE_CACHE);
+                    if (firstPages != null) {
+                        aggregates.keySet().forEach(firstPages::evict);
+                    }
+                    return aggregates;
+                },
+                meterRegistry);
+    }
+
+    private static void clear(CacheManager cacheManager, String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.rating_service.config;
 
+import com.example.cache.SingleFlightCacheManager;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -12,10 +14,12 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 
 import java.time.Duration;
+import java.util.Set;
 
 @Configuration  // Indica que esta clase contiene beans de configuración para Spring
 @EnableCaching  // Habilita la funcionalidad de caché en la aplicación
@@ -35,11 +39,19 @@ public class RedisConfig {
     }
 
     // Bean que gestiona la caché y aplica la configuración definida
+    // Los caches de rating.cache.single-flight.names se cargan una sola vez al vencer (lock en Redis por clave)
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        return RedisCacheManager.builder(connectionFactory) // Crea un administrador de caché usando la conexión Redis
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     StringRedisTemplate stringRedisTemplate,
+                                     @Value("${rating.cache.single-flight.names:allRatings}") Set<String> singleFlightNames,
+                                     @Value("${rating.cache.single-flight.lock-ttl:30s}") Duration lockTtl,
+                                     @Value("${rating.cache.single-flight.wait-timeout:10s}") Duration lockWaitTimeout) {
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory) // Crea un administrador de caché usando la conexión Redis
                 .cacheDefaults(cacheConfiguration()) // Aplica la configuración personalizada
-                .build(); // Construye y devuelve el CacheManager
+                .build(); // Construye el CacheManager de Redis
+        redisCacheManager.afterPropertiesSet();
+        return new SingleFlightCacheManager(redisCacheManager, stringRedisTemplate,
+                singleFlightNames, lockTtl, lockWaitTimeout);
     }
 
     @Bean
@@ -2,12 +2,19 @@ package com.example.rating_service.controller;
 
 import com.example.rating_service.dtos.RatingAverageDTO;
 import com.example.rating_service.dtos.RatingDTO;
+import com.example.rating_service.dtos.RatingDistributionDTO;
+import com.example.rating_service.dtos.RatingPageDTO;
 import com.example.rating_service.dtos.RatingUserDTO;
+import com.example.rating_service.exception.InvalidCursorException;
+import com.example.rating_service.exception.RatingAlreadyExistsException;
+import com.example.rating_service.models.MovieRatingAggregate;
 import com.example.rating_service.models.Rating;
 import com.example.rating_service.service.RatingService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +22,7 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/rating")
@@ -22,6 +30,9 @@ public class RatingController {
     @Autowired
     private RatingService ratingService;
 
+    @Value("${rating.distribution.max-ids:500}")
+    private int maxDistributionIds;
+
     @PostMapping("/addRating")
     public ResponseEntity<List<Rating>> addRating(@Valid @RequestBody List<Rating> list){
         List<Rating> ratingList =ratingService.createRating(list);
@@ -36,7 +47,12 @@ public class RatingController {
         Map<String, Object> response = new HashMap<>();
         response.put("movieId", averageDTO.getMovieId());
         response.put("averageScore", averageDTO.getAverageScore());
-        response.put("message", "Rating added and catalog updated successfully");
+        if (averageDTO.getAverageScore() == null) {
+            //Write-behind con durability=enqueue, o su lote no se escribió dentro de flush-timeout: sigue en la cola
+            response.put("message", "Rating queued");
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        }
+        response.put("message", "Rating added, catalog score update queued");
 
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
@@ -51,12 +67,45 @@ public class RatingController {
         return ratingService.findById(id);
     }
 
+    //Paginación por cursor: /rating/byMovie/C1 y luego ?after=<nextCursor>&limit=
     @GetMapping("/byMovie/{movieId}")
-    public ResponseEntity<?> getByMovieId(@PathVariable String movieId){
-        List<Rating> found= ratingService.findAllByMovieId(movieId);
+    public ResponseEntity<?> getByMovieId(@PathVariable String movieId,
+                                          @RequestParam(required = false) String after,
+                                          @RequestParam(required = false) Integer limit){
+        if (limit != null && limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        RatingPageDTO found= ratingService.findPageByMovieId(movieId, after, limit);
         return ResponseEntity.ok(found);
     }
 
+    //Suma, cantidad, promedio e histograma por Score de una película (sin leer sus ratings)
+    @GetMapping("/aggregate/{movieId}")
+    public ResponseEntity<MovieRatingAggregate> getAggregate(@PathVariable String movieId){
+        return ResponseEntity.ok(ratingService.findAggregate(movieId));
+    }
+
+    //Cantidad de ratings por Score (ONE_STAR..FIVE_STARS), desde el agregado de la película
+    @GetMapping("/distribution/{movieId}")
+    public ResponseEntity<RatingDistributionDTO> getDistribution(@PathVariable String movieId){
+        return ResponseEntity.ok(ratingService.findDistribution(movieId));
+    }
+
+    //Many movies at once: body = ["1L", "2L", ...]
+    @PostMapping("/distribution")
+    public ResponseEntity<List<RatingDistributionDTO>> getDistributions(@RequestBody List<String> movieIds){
+        if (movieIds.isEmpty() || movieIds.size() > maxDistributionIds) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(ratingService.findDistributions(movieIds));
+    }
+
+    //Recalcula todos los agregados desde los ratings (para datos cargados antes o por fuera del servicio)
+    @PostMapping("/aggregate/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildAggregates(){
+        return ResponseEntity.ok(Map.of("movies", ratingService.rebuildAggregates()));
+    }
+
     @PutMapping("/update/{id}")
     public ResponseEntity<?> updateRating(@PathVariable String id,
                                           @Valid @RequestBody RatingDTO ratingDTO){
@@ -69,4 +118,22 @@ public class RatingController {
         ratingService.removeRating(id);
         return ResponseEntity.noContent().build();
     }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, String>> invalidCursor(InvalidCursorException ex){
+        return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(RatingAlreadyExistsException.class)
+    public ResponseEntity<Map<String, String>> ratingAlreadyExists(RatingAlreadyExistsException ex){
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", ex.getMessage()));
+    }
+
+    //Cola de ingesta write-behind llena
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> ingestQueueFull(RejectedExecutionException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("message", ex.getMessage()));
+    }
 }
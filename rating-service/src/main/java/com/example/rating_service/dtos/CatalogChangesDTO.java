@@ -0,0 +1,50 @@
+package com.example.rating_service.dtos;
+
+import lombok.Data;
+
+import java.util.List;
+
+//Respuesta de GET /catalog/changes (delta sync de catalog-service)
+@Data
+public class CatalogChangesDTO {
+    //Películas creadas o modificadas desde ?since=, ordenadas por version
+    private List<CatalogDTO> upserts;
+    //movieIds borrados desde ?since=
+    private List<String> deleted;
+    //Valor a enviar como ?since= en la próxima llamada
+    private long version;
+    //true si se cortó por ?limit=: hay que volver a llamar enseguida con la nueva version
+    private boolean hasMore;
+
+    public List<CatalogDTO> getUpserts() {
+        return upserts;
+    }
+
+    public void setUpserts(List<CatalogDTO> upserts) {
+        this.upserts = upserts;
+    }
+
+    public List<String> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<String> deleted) {
+        this.deleted = deleted;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
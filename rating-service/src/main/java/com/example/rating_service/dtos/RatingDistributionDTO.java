@@ -0,0 +1,46 @@
+package com.example.rating_service.dtos;
+
+import com.example.rating_service.enums.Score;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+//Cantidad de ratings por Score de una película (las cinco claves siempre presentes, de ONE_STAR a FIVE_STARS)
+public class RatingDistributionDTO {
+    private String movieId;
+    private long total;
+    private double average;
+    private Map<Score, Long> counts = new EnumMap<>(Score.class);
+
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+
+    public void setAverage(double average) {
+        this.average = average;
+    }
+
+    public Map<Score, Long> getCounts() {
+        return counts;
+    }
+
+    public void setCounts(Map<Score, Long> counts) {
+        this.counts = counts;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.rating_service.dtos;
+
+import com.example.rating_service.models.Rating;
+
+import java.util.List;
+
+public class RatingPageDTO {
+    private List<Rating> content;
+    //Valor a enviar como ?after= para pedir la página siguiente (null si no hay más)
+    private String nextCursor;
+
+    public RatingPageDTO() {
+    }
+
+    public RatingPageDTO(List<Rating> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Rating> getContent() {
+        return content;
+    }
+
+    public void setContent(List<Rating> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
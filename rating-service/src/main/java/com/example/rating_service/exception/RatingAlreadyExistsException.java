@@ -0,0 +1,7 @@
+package com.example.rating_service.exception;
+
+public class RatingAlreadyExistsException extends RuntimeException {
+    public RatingAlreadyExistsException(String id) {
+        super("Rating with id: " + id + " already exists.");
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.rating_service.ingest;
+
+import com.example.rating_service.exception.RatingAlreadyExistsException;
+import com.example.rating_service.models.MovieRatingAggregate;
+import com.example.rating_service.models.Rating;
+import com.example.rating_service.service.RatingAggregateService;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Escribe un lote de la cola write-behind: un $inc por película y un insert unordered de los ratings
+//($inc primero, ver RatingAggregateService).
+//Los ids se asignan antes del primer intento, así un reintento del mismo lote sabe qué ratings ya entraron:
+// - al reintentar, los que ya están en la colección no se vuelven a contar ni a insertar
+// - un duplicate key en el insert es un rating que ya entró: cuenta como escrito
+//Si falla parte del insert solo se compensa el $inc de los ratings que no se escribieron.
+//Si no se puede saber cómo quedó el agregado (falla el $inc, la compensación o la consulta de qué entró, ej. MongoDB
+//caído) el lote no se reintenta (UnreconciledWriteException): sus películas se recalculan desde los ratings
+//cada reconcile-interval hasta que MongoDB responda.
+///addRating usa create(): ahí un duplicate key no es un reintento sino un rating que no se escribió.
+@Component
+public class RatingBatchWriter {
+    private static final Logger log = LoggerFactory.getLogger(RatingBatchWriter.class);
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final RatingAggregateService ratingAggregateService;
+    //Películas cuyo agregado puede no coincidir con sus ratings
+    private final Set<String> unreconciled = ConcurrentHashMap.newKeySet();
+
+    public RatingBatchWriter(MongoTemplate mongoTemplate, RatingAggregateService ratingAggregateService) {
+        this.mongoTemplate = mongoTemplate;
+        this.ratingAggregateService = ratingAggregateService;
+    }
+
+    //Devuelve el agregado de cada película del lote
+    public Map<String, MovieRatingAggregate> write(List<Rating> batch) {
+        List<Rating> pending = unwritten(batch);
+        Map<String, MovieRatingAggregate> aggregates = insert(pending, true);
+        //Películas cuyos ratings ya habían entrado en un intento anterior
+        for (Rating rating : batch) {
+            aggregates.computeIfAbsent(rating.getMovieId(), ratingAggregateService::find);
+        }
+        return aggregates;
+    }
+
+    //Ratings nuevos de /addRating. Un id que ya existe no se reemplaza: el agregado tendría que descontar el rating
+    //anterior (para eso está changeRating). RatingAlreadyExistsException si alguno ya está en la colección
+    public List<Rating> create(List<Rating> ratings) {
+        List<String> ids = ratings.stream().map(Rating::getId).filter(Objects::nonNull).toList();
+        if (!ids.isEmpty()) {
+            Set<String> existing = existing(ids);
+            if (!existing.isEmpty()) {
+                throw new RatingAlreadyExistsException(existing.iterator().next());
+            }
+        }
+        assignIds(ratings);
+        //Otro request con el mismo id entre la consulta y el insert: el duplicate key es un rating que no se escribió
+        insert(ratings, false);
+        return ratings;
+    }
+
+    //$inc de los ratings y insert unordered; si el insert falla se compensa solo lo que no se escribió
+    private Map<String, MovieRatingAggregate> insert(List<Rating> pending, boolean duplicatesWritten) {
+        Map<String, MovieRatingAggregate> aggregates;
+        try {
+            aggregates = ratingAggregateService.addedAll(pending);
+        } catch (RuntimeException ex) {
+            //Algunos $inc pueden haberse aplicado
+            throw unreconciled(pending, ex);
+        }
+        if (pending.isEmpty()) {
+            return aggregates;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Rating.class).insert(pending).execute();
+        } catch (BulkOperationException ex) {
+            List<Rating> failed = new ArrayList<>();
+            for (BulkWriteError error : ex.getErrors()) {
+                if (!duplicatesWritten || error.getCode() != DUPLICATE_KEY) {
+                    failed.add(pending.get(error.getIndex()));
+                }
+            }
+            if (!failed.isEmpty()) {
+                compensate(failed, ex);
+                throw ex;
+            }
+        } catch (RuntimeException ex) {
+            //No se sabe qué parte del lote entró: se deshace solo lo que no está en la colección
+            List<Rating> notWritten;
+            try {
+                Set<String> written = existing(pending.stream().map(Rating::getId).toList());
+                notWritten = pending.stream().filter(rating -> !written.contains(rating.getId())).toList();
+            } catch (RuntimeException lookup) {
+                ex.addSuppressed(lookup);
+                throw unreconciled(pending, ex);
+            }
+            compensate(notWritten, ex);
+            throw ex;
+        }
+        return aggregates;
+    }
+
+    public Set<String> getUnreconciled() {
+        return Set.copyOf(unreconciled);
+    }
+
+    //Recalcula desde sus ratings los agregados que quedaron en duda; si MongoDB sigue sin responder, en el próximo
+    @Scheduled(fixedDelayString = "${rating.ingest.reconcile-interval:10s}",
+            initialDelayString = "${rating.ingest.reconcile-interval:10s}")
+    public void reconcile() {
+        for (String movieId : List.copyOf(unreconciled)) {
+            try {
+                ratingAggregateService.recount(movieId);
+                unreconciled.remove(movieId);
+                log.info("Rating aggregate of movie {} recounted after an unknown batch outcome", movieId);
+            } catch (DataAccessException ex) {
+                log.debug("Could not recount rating aggregate of movie {}: {}", movieId, ex.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void compensate(List<Rating> ratings, RuntimeException cause) {
+        try {
+            ratingAggregateService.removedAll(ratings);
+        } catch (RuntimeException ex) {
+            cause.addSuppressed(ex);
+            throw unreconciled(ratings, cause);
+        }
+    }
+
+    private UnreconciledWriteException unreconciled(List<Rating> ratings, RuntimeException cause) {
+        Set<String> movieIds = new HashSet<>();
+        ratings.forEach(rating -> movieIds.add(rating.getMovieId()));
+        unreconciled.addAll(movieIds);
+        log.error("Rating aggregates of {} movies will be recounted: could not tell which ratings were written ({})",
+                movieIds.size(), cause.getMessage());
+        return new UnreconciledWriteException(movieIds, cause);
+    }
+
+    //Primer intento: asigna los ids y devuelve todo el lote. Reintento: los ratings que todavía no están en MongoDB
+    private List<Rating> unwritten(List<Rating> ratings) {
+        List<String> ids = ratings.stream().map(Rating::getId).filter(Objects::nonNull).toList();
+        assignIds(ratings);
+        if (ids.isEmpty()) {
+            return ratings;
+        }
+        Set<String> written = existing(ids);
+        return ratings.stream().filter(rating -> !written.contains(rating.getId())).toList();
+    }
+
+    private static void assignIds(List<Rating> ratings) {
+        for (Rating rating : ratings) {
+            if (rating.getId() == null) {
+                rating.setId(new ObjectId().toHexString());
+            }
+            //Con el id ya asignado la auditoría lo trata como existente y no completa @CreatedDate
+            if (rating.getCreatedAt() == null) {
+                rating.setCreatedAt(LocalDate.now());
+            }
+        }
+    }
+
+    private Set<String> existing(List<String> ids) {
+        Query query = Query.query(Criteria.where("_id").in(ids));
+        query.fields().include("_id");
+        Set<String> existing = new HashSet<>();
+        mongoTemplate.find(query, Rating.class).forEach(rating -> existing.add(rating.getId()));
+        return existing;
+    }
+}
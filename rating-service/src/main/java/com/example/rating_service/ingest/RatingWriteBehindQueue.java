@@ -0,0 +1,184 @@
+package com.example.rating_service.ingest;
+
+import com.example.rating_service.models.MovieRatingAggregate;
+import com.example.rating_service.models.Rating;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+//Ingesta write-behind de ratings (rating.ingest.mode=write-behind): los requests encolan y un solo hilo
+//escribe en lotes (group commit) cada batch-size ratings o cada max-delay desde el primero del lote.
+//El flusher recibe el lote, lo inserta (RatingBatchWriter) y devuelve el agregado de cada película;
+//un reintento recibe el mismo lote, con los mismos ids.
+//Durabilidad (rating.ingest.durability):
+// - flush: el request espera a que su lote esté en MongoDB (mismo resultado que el modo sync, menos round trips)
+// - enqueue: se responde al encolar; si la instancia se cae antes del flush, los ratings en la cola se pierden
+//Métricas: rating.ingest.queue.depth, rating.ingest.flush.size, rating.ingest.flush.latency,
+//rating.ingest.rejected (cola llena) y rating.ingest.dropped (lotes que no se pudieron escribir).
+public class RatingWriteBehindQueue implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(RatingWriteBehindQueue.class);
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final boolean ackOnEnqueue;
+    private final Function<List<Rating>, Map<String, MovieRatingAggregate>> flusher;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final DistributionSummary flushSize;
+    private final Timer flushLatency;
+    private final Counter rejected;
+    private final Counter dropped;
+
+    public RatingWriteBehindQueue(int capacity, int batchSize, Duration maxDelay, boolean ackOnEnqueue,
+                                  Function<List<Rating>, Map<String, MovieRatingAggregate>> flusher,
+                                  MeterRegistry meterRegistry) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.ackOnEnqueue = ackOnEnqueue;
+        this.flusher = flusher;
+        Gauge.builder("rating.ingest.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        this.flushSize = DistributionSummary.builder("rating.ingest.flush.size").register(meterRegistry);
+        this.flushLatency = Timer.builder("rating.ingest.flush.latency").publishPercentileHistogram().register(meterRegistry);
+        this.rejected = Counter.builder("rating.ingest.rejected").register(meterRegistry);
+        this.dropped = Counter.builder("rating.ingest.dropped").register(meterRegistry);
+        this.writer = new Thread(this::run, "rating-write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public boolean isAckOnEnqueue() {
+        return ackOnEnqueue;
+    }
+
+    //Se completa con el agregado de la película cuando el lote quedó escrito.
+    //RejectedExecutionException si la cola está llena (el cliente debería reintentar más tarde)
+    public CompletableFuture<MovieRatingAggregate> submit(Rating rating) {
+        Pending pending = new Pending(rating);
+        if (!running || !queue.offer(pending)) {
+            rejected.increment();
+            throw new RejectedExecutionException("Rating ingest queue is full");
+        }
+        return pending.result;
+    }
+
+    //Deja de aceptar ratings y escribe los que quedan en la cola
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    //Espera el primer rating y junta más hasta batchSize o hasta maxDelay desde el primero
+    private void collect(List<Pending> batch) throws InterruptedException {
+        //Sin take(): así close() no necesita interrumpir el hilo (un interrupt corta la escritura en curso)
+        Pending first = running ? queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS) : queue.poll();
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !running) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<Rating> ratings = batch.stream().map(pending -> pending.rating).toList();
+        RuntimeException failure = null;
+        int attempt = 1;
+        for (; attempt <= MAX_ATTEMPTS; attempt++) {
+            long start = System.nanoTime();
+            try {
+                Map<String, MovieRatingAggregate> aggregates = flusher.apply(ratings);
+                flushLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                flushSize.record(batch.size());
+                batch.forEach(pending -> pending.result.complete(aggregates.get(pending.rating.getMovieId())));
+                return;
+            } catch (RuntimeException ex) {
+                failure = ex;
+                log.warn("Could not write {} ratings (attempt {}/{}): {}", batch.size(), attempt, MAX_ATTEMPTS, ex.getMessage());
+                //Con durability=flush el cliente está esperando: no tiene sentido demorarlo con más reintentos.
+                //Un lote de resultado desconocido tampoco se reintenta: podría contar dos veces sus ratings
+                if (!ackOnEnqueue || ex instanceof UnreconciledWriteException || !sleep(100L * attempt)) {
+                    break;
+                }
+            }
+        }
+        if (ackOnEnqueue) {
+            dropped.increment(batch.size());
+            log.error("Dropped {} acknowledged ratings after {} attempts", batch.size(), Math.min(attempt, MAX_ATTEMPTS));
+        }
+        RuntimeException cause = failure;
+        batch.forEach(pending -> pending.result.completeExceptionally(cause));
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static final class Pending {
+        private final Rating rating;
+        private final CompletableFuture<MovieRatingAggregate> result = new CompletableFuture<>();
+
+        private Pending(Rating rating) {
+            this.rating = rating;
+        }
+    }
+}
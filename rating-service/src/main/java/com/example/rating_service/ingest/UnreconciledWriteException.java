@@ -0,0 +1,18 @@
+package com.example.rating_service.ingest;
+
+import java.util.Set;
+
+//Un lote cuyo resultado no se conoce (ver RatingBatchWriter): reintentarlo podría contar dos veces sus ratings.
+//Los agregados de sus películas se recalculan en segundo plano.
+public class UnreconciledWriteException extends RuntimeException {
+    private final Set<String> movieIds;
+
+    public UnreconciledWriteException(Set<String> movieIds, Throwable cause) {
+        super("Outcome of the rating batch is unknown; aggregates of " + movieIds.size() + " movies will be recounted", cause);
+        this.movieIds = movieIds;
+    }
+
+    public Set<String> getMovieIds() {
+        return movieIds;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.rating_service.models;
+
+import com.example.rating_service.enums.Score;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+
+//Resumen de los ratings de una película, mantenido con $inc en cada alta, cambio o baja de un rating:
+//el promedio sale de sum / count sin volver a leer los ratings.
+@Document(collection = "movie_rating_aggregates")
+//Solo los pendientes de publicar: el índice queda chico aunque haya millones de películas
+@CompoundIndex(name = "publish_pending_idx", def = "{'publishPending': 1, 'nextPublishAt': 1}",
+        partialFilter = "{'publishPending': true}")
+public class MovieRatingAggregate {
+    @Id
+    private String movieId;
+    //Suma de Score.getValue() de todos los ratings
+    private long sum;
+    private long count;
+    //Cantidad de ratings por Score
+    private Map<Score, Long> histogram = new EnumMap<>(Score.class);
+    private Instant updatedAt;
+
+    //Outbox hacia catalog-service (ver ScorePublisher): cada cambio suma revision y marca publishPending
+    //en el mismo $inc, así no hay cambio de promedio sin su publicación pendiente
+    @JsonIgnore
+    private long revision;
+    @JsonIgnore
+    private boolean publishPending;
+    @JsonIgnore
+    private int publishAttempts;
+    //Después de un error, no se reintenta antes de esta fecha
+    @JsonIgnore
+    private Instant nextPublishAt;
+
+    public MovieRatingAggregate() {
+    }
+
+    public MovieRatingAggregate(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public double getAverage() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(String movieId) {
+        this.movieId = movieId;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public void setSum(long sum) {
+        this.sum = sum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Map<Score, Long> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(Map<Score, Long> histogram) {
+        this.histogram = histogram;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+
+    public boolean isPublishPending() {
+        return publishPending;
+    }
+
+    public void setPublishPending(boolean publishPending) {
+        this.publishPending = publishPending;
+    }
+
+    public int getPublishAttempts() {
+        return publishAttempts;
+    }
+
+    public void setPublishAttempts(int publishAttempts) {
+        this.publishAttempts = publishAttempts;
+    }
+
+    public Instant getNextPublishAt() {
+        return nextPublishAt;
+    }
+
+    public void setNextPublishAt(Instant nextPublishAt) {
+        this.nextPublishAt = nextPublishAt;
+    }
+}
@@ -6,10 +6,13 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDate;
 @Document(collection = "rating")
+//Paginación por cursor de /rating/byMovie: cada página es un rango de este índice (más nuevos primero)
+@CompoundIndex(name = "movie_created_idx", def = "{'movieId': 1, 'createdAt': -1, '_id': -1}")
 public class Rating {
     @Id
     private String id;
@@ -0,0 +1,54 @@
+package com.example.rating_service.repository;
+
+import com.example.rating_service.exception.InvalidCursorException;
+import com.example.rating_service.models.Rating;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+//Posición en el orden (createdAt desc, id desc) de los ratings de una película: el último rating de una página.
+//Viaja al cliente como texto opaco (base64url de "createdAt|id"; createdAt vacío = sin fecha)
+public final class RatingCursor {
+    private static final String SEPARATOR = "|";
+
+    private final LocalDate createdAt;
+    private final String id;
+
+    public RatingCursor(LocalDate createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static RatingCursor of(Rating rating) {
+        return new RatingCursor(rating.getCreatedAt(), rating.getId());
+    }
+
+    public static RatingCursor decode(String cursor) {
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = text.indexOf(SEPARATOR);
+            if (separator < 0 || separator == text.length() - 1) {
+                throw new InvalidCursorException(cursor);
+            }
+            String date = text.substring(0, separator);
+            return new RatingCursor(date.isEmpty() ? null : LocalDate.parse(date), text.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+
+    public String encode() {
+        String text = (createdAt == null ? "" : createdAt.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public LocalDate getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
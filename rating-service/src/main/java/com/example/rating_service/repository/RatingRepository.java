@@ -6,7 +6,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import java.util.List;
 import java.util.Optional;
 
-public interface RatingRepository extends MongoRepository<Rating,String > {
+public interface RatingRepository extends MongoRepository<Rating,String >, RatingRepositoryCustom {
     List<Rating> findByMovieId(String movieId);
 
     Optional<Rating> findByUserId(String movieId);
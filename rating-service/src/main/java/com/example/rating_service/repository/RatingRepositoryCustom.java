@@ -0,0 +1,13 @@
+package com.example.rating_service.repository;
+
+import com.example.rating_service.models.Rating;
+
+import java.util.List;
+
+//Operaciones que Spring Data no puede derivar del nombre del método (implementadas en RatingRepositoryImpl)
+public interface RatingRepositoryCustom {
+
+    //Paginación por cursor (keyset) sobre (movieId, createdAt, _id), más nuevos primero:
+    //cada página es un rango de movie_created_idx, sin skip. after null = primera página
+    List<Rating> findPageByMovie(String movieId, RatingCursor after, int limit);
+}
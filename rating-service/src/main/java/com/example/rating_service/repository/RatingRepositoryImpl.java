@@ -0,0 +1,44 @@
+package com.example.rating_service.repository;
+
+import com.example.rating_service.models.Rating;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+public class RatingRepositoryImpl implements RatingRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Rating> findPageByMovie(String movieId, RatingCursor after, int limit) {
+        Criteria criteria = Criteria.where("movieId").is(movieId);
+        if (after != null) {
+            criteria = criteria.andOperator(after(after));
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(limit);
+        return mongoTemplate.find(query, Rating.class);
+    }
+
+    //Todo lo que viene después del cursor en orden (createdAt desc, _id desc).
+    //Los ratings sin createdAt (cargados por fuera del servicio) quedan al final, ordenados por _id
+    private static Criteria after(RatingCursor cursor) {
+        if (cursor.getCreatedAt() == null) {
+            return new Criteria().andOperator(
+                    Criteria.where("createdAt").is(null),
+                    Criteria.where("_id").lt(cursor.getId()));
+        }
+        return new Criteria().orOperator(
+                Criteria.where("createdAt").lt(cursor.getCreatedAt()),
+                new Criteria().andOperator(
+                        Criteria.where("createdAt").is(cursor.getCreatedAt()),
+                        Criteria.where("_id").lt(cursor.getId())),
+                Criteria.where("createdAt").is(null));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.rating_service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+//Locks por película dentro de la réplica, repartidos en un número fijo de stripes (hash del movieId):
+//dos escrituras de la misma película se ordenan, las de películas distintas casi nunca comparten lock.
+//Solo ordena hilos de este proceso; entre réplicas la consistencia la dan los updates atómicos de MongoDB.
+@Component
+public class MovieLockStripes {
+
+    private final ReentrantLock[] stripes;
+
+    public MovieLockStripes(@Value("${rating.aggregate.lock-stripes:64}") int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("rating.aggregate.lock-stripes must be positive");
+        }
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(String movieId, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(movieId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Dos películas (ej. un rating que cambia de película): los stripes se toman siempre en orden de índice,
+    //así dos hilos que cambian ratings en sentidos opuestos no se bloquean mutuamente. Los locks son reentrantes:
+    //dentro de action se puede volver a tomar el lock de cualquiera de las dos (ej. el seed del agregado)
+    public <T> T withLocks(String movieId, String otherMovieId, Supplier<T> action) {
+        int first = indexFor(movieId);
+        int second = indexFor(otherMovieId);
+        if (first == second) {
+            return withLock(movieId, action);
+        }
+        ReentrantLock lower = stripes[Math.min(first, second)];
+        ReentrantLock higher = stripes[Math.max(first, second)];
+        lower.lock();
+        try {
+            higher.lock();
+            try {
+                return action.get();
+            } finally {
+                higher.unlock();
+            }
+        } finally {
+            lower.unlock();
+        }
+    }
+
+    ReentrantLock stripeFor(String movieId) {
+        return stripes[indexFor(movieId)];
+    }
+
+    private int indexFor(String movieId) {
+        //spread como en HashMap: los bits altos también eligen stripe
+        int hash = movieId.hashCode();
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, stripes.length);
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.rating_service.service;
+
+import com.example.rating_service.dtos.RatingDistributionDTO;
+import com.example.rating_service.enums.Score;
+import com.example.rating_service.models.MovieRatingAggregate;
+import com.example.rating_service.models.Rating;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+//Agregados por película (MovieRatingAggregate): suma, cantidad e histograma por Score.
+//Cada escritura de ratings los ajusta con un solo findAndModify con $inc (atómico por documento),
+//que además deja el nuevo promedio pendiente de publicar a catalog-service (ScorePublisher).
+//Una película sin agregado (ratings anteriores a esta colección) se calcula una vez desde sus ratings
+//la primera vez que se la toca; rebuildAll() recalcula todo (ej. después de migrar datos a mano).
+//Orden: primero el $inc y después la escritura del rating (con compensación si falla). Así el conteo inicial
+//de una película nunca incluye un rating cuyo $inc también se aplica, aunque escriban varias réplicas a la vez.
+@Service
+public class RatingAggregateService {
+    private static final Logger log = LoggerFactory.getLogger(RatingAggregateService.class);
+    private static final int REBUILD_BATCH = 1000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private MovieLockStripes movieLocks;
+
+    //Antes de guardar el rating
+    public MovieRatingAggregate added(String movieId, Score score) {
+        return apply(movieId, Map.of(score, 1));
+    }
+
+    //Antes de borrarlo
+    public MovieRatingAggregate removed(String movieId, Score score) {
+        return apply(movieId, Map.of(score, -1));
+    }
+
+    //Ratings que van a cambiar de score (o de película); con (after, before) se deshace
+    public void changed(Rating before, Rating after) {
+        if (before.getMovieId().equals(after.getMovieId())) {
+            if (before.getScore() != after.getScore()) {
+                Map<Score, Integer> deltas = new HashMap<>();
+                deltas.put(before.getScore(), -1);
+                deltas.put(after.getScore(), 1);
+                apply(after.getMovieId(), deltas);
+            }
+            return;
+        }
+        removed(before.getMovieId(), before.getScore());
+        added(after.getMovieId(), after.getScore());
+    }
+
+    //Altas en lote, antes del insert: un $inc por película. Devuelve el agregado resultante de cada película
+    public Map<String, MovieRatingAggregate> addedAll(List<Rating> ratings) {
+        return applyAll(ratings, 1);
+    }
+
+    //Deshace addedAll (ej. falló el insert del lote)
+    public Map<String, MovieRatingAggregate> removedAll(List<Rating> ratings) {
+        return applyAll(ratings, -1);
+    }
+
+    private Map<String, MovieRatingAggregate> applyAll(List<Rating> ratings, int sign) {
+        Map<String, Map<Score, Integer>> deltasByMovie = new HashMap<>();
+        for (Rating rating : ratings) {
+            deltasByMovie.computeIfAbsent(rating.getMovieId(), movieId -> new HashMap<>())
+                    .merge(rating.getScore(), sign, Integer::sum);
+        }
+        Map<String, MovieRatingAggregate> aggregates = new HashMap<>();
+        deltasByMovie.forEach((movieId, deltas) -> aggregates.put(movieId, apply(movieId, deltas)));
+        return aggregates;
+    }
+
+    //Agregado actual; si la película todavía no tiene, se calcula desde sus ratings
+    public MovieRatingAggregate find(String movieId) {
+        MovieRatingAggregate aggregate = mongoTemplate.findById(movieId, MovieRatingAggregate.class);
+        return aggregate != null ? aggregate : seed(movieId, false);
+    }
+
+    //Distribución de scores leída solo del agregado (un documento por película, nunca los ratings).
+    //Una película sin agregado devuelve todo en cero: los ratings cargados por fuera del servicio
+    //aparecen después de POST /rating/aggregate/rebuild
+    public RatingDistributionDTO distribution(String movieId) {
+        Query query = Query.query(Criteria.where("_id").is(movieId));
+        query.fields().include("sum", "count", "histogram");
+        return toDistribution(movieId, mongoTemplate.findOne(query, MovieRatingAggregate.class));
+    }
+
+    //Varias películas en una sola consulta por _id, en el orden pedido (sin repetidos)
+    public List<RatingDistributionDTO> distributions(List<String> movieIds) {
+        Query query = Query.query(Criteria.where("_id").in(movieIds));
+        query.fields().include("sum", "count", "histogram");
+        Map<String, MovieRatingAggregate> found = new HashMap<>();
+        for (MovieRatingAggregate aggregate : mongoTemplate.find(query, MovieRatingAggregate.class)) {
+            found.put(aggregate.getMovieId(), aggregate);
+        }
+        return movieIds.stream()
+                .distinct()
+                .map(movieId -> toDistribution(movieId, found.get(movieId)))
+                .toList();
+    }
+
+    //Recalcula todos los agregados desde la colección rating y deja en 0 los de películas que ya no tienen ratings
+    //(así catalog-service recibe el promedio 0 en vez de quedarse con el último).
+    //Cada agregado se actualiza con $set y suma revision, como un $inc: un lote de ScorePublisher que se estaba
+    //enviando con la revision anterior no le borra el publishPending.
+    //Correr con poco tráfico: un rating que se escriba mientras tanto puede quedar contado dos veces o ninguna
+    //(se corrige volviendo a correrlo).
+    public int rebuildAll() {
+        //Reloj del servidor: updatedAt lo pone MongoDB ($currentDate)
+        Instant start = serverTime();
+        Aggregation countByMovieAndScore = Aggregation.newAggregation(
+                Aggregation.group("movieId", "score").count().as("count"),
+                Aggregation.sort(Sort.by("_id.movieId")));
+        int movies = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MovieRatingAggregate.class);
+        int pending = 0;
+        MovieRatingAggregate current = null;
+        try (Stream<Document> stream = mongoTemplate.aggregateStream(
+                countByMovieAndScore.withOptions(Aggregation.newAggregationOptions().allowDiskUse(true).build()),
+                Rating.class, Document.class)) {
+            Iterator<Document> rows = stream.iterator();
+            while (rows.hasNext()) {
+                Document row = rows.next();
+                Document id = (Document) row.get("_id");
+                String movieId = id.getString("movieId");
+                if (current == null || !current.getMovieId().equals(movieId)) {
+                    if (current != null) {
+                        replace(bulk, current);
+                        movies++;
+                        if (++pending == REBUILD_BATCH) {
+                            bulk.execute();
+                            bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MovieRatingAggregate.class);
+                            pending = 0;
+                        }
+                    }
+                    current = new MovieRatingAggregate(movieId);
+                }
+                count(current, Score.valueOf(id.getString("score")), ((Number) row.get("count")).longValue());
+            }
+        }
+        if (current != null) {
+            replace(bulk, current);
+            movies++;
+            pending++;
+        }
+        if (pending > 0) {
+            bulk.execute();
+        }
+        //Los que no se tocaron no tienen ratings; los que ya estaban en 0 no se vuelven a publicar
+        Update empty = pendingPublish(new Update()
+                .set("sum", 0L)
+                .set("count", 0L)
+                .set("histogram", new EnumMap<Score, Long>(Score.class)));
+        long emptied = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("updatedAt").lt(start).and("count").ne(0L)),
+                empty, MovieRatingAggregate.class).getModifiedCount();
+        log.info("Rebuilt rating aggregates for {} movies ({} left without ratings)", movies, emptied);
+        return movies;
+    }
+
+    private MovieRatingAggregate apply(String movieId, Map<Score, Integer> deltas) {
+        Update update = pendingPublish(new Update());
+        long sum = 0;
+        long count = 0;
+        for (Map.Entry<Score, Integer> delta : deltas.entrySet()) {
+            update.inc("histogram." + delta.getKey().name(), (long) delta.getValue());
+            sum += (long) delta.getKey().getValue() * delta.getValue();
+            count += delta.getValue();
+        }
+        update.inc("sum", sum).inc("count", count);
+        Query byMovie = Query.query(Criteria.where("_id").is(movieId));
+        MovieRatingAggregate aggregate = mongoTemplate.findAndModify(byMovie, update,
+                FindAndModifyOptions.options().returnNew(true), MovieRatingAggregate.class);
+        //Sin agregado: se arma desde los ratings (que todavía no incluyen este cambio) y se aplica el $inc encima.
+        //Se repite si el agregado desaparece justo en el medio (ej. se vació la colección a mano)
+        while (aggregate == null) {
+            seed(movieId, true);
+            aggregate = mongoTemplate.findAndModify(byMovie, update,
+                    FindAndModifyOptions.options().returnNew(true), MovieRatingAggregate.class);
+        }
+        return aggregate;
+    }
+
+    //Crea el agregado de una película desde sus ratings (solo si sigue sin existir).
+    //Con el lock de la película, varios hilos que tocan la misma película fría cuentan sus ratings una sola vez;
+    //entre réplicas alcanza con $setOnInsert: gana el primer conteo y los demás no pisan nada.
+    private MovieRatingAggregate seed(String movieId, boolean createEmpty) {
+        return movieLocks.withLock(movieId, () -> {
+            MovieRatingAggregate existing = mongoTemplate.findById(movieId, MovieRatingAggregate.class);
+            return existing != null ? existing : countAndInsert(movieId, createEmpty);
+        });
+    }
+
+    //Vuelve a contar los ratings de una película y reemplaza su agregado (ej. un lote de la cola write-behind
+    //que no se sabe si se escribió). Con el lock de la película; como rebuildAll, un rating que otra réplica
+    //escriba justo en el medio puede quedar mal contado
+    public MovieRatingAggregate recount(String movieId) {
+        return movieLocks.withLock(movieId, () -> {
+            MovieRatingAggregate counted = countRatings(movieId);
+            Update update = pendingPublish(new Update()
+                    .set("sum", counted.getSum())
+                    .set("count", counted.getCount())
+                    .set("histogram", counted.getHistogram()));
+            return mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(movieId)),
+                    update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    MovieRatingAggregate.class);
+        });
+    }
+
+    private MovieRatingAggregate countRatings(String movieId) {
+        MovieRatingAggregate aggregate = new MovieRatingAggregate(movieId);
+        Aggregation countByScore = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("movieId").is(movieId)),
+                Aggregation.group("score").count().as("count"));
+        for (Document row : mongoTemplate.aggregate(countByScore, Rating.class, Document.class)) {
+            count(aggregate, Score.valueOf(row.getString("_id")), ((Number) row.get("count")).longValue());
+        }
+        return aggregate;
+    }
+
+    private MovieRatingAggregate countAndInsert(String movieId, boolean createEmpty) {
+        MovieRatingAggregate aggregate = countRatings(movieId);
+        if (aggregate.getCount() == 0 && !createEmpty) {
+            return aggregate;
+        }
+        Update update = pendingPublish(new Update()
+                .setOnInsert("sum", aggregate.getSum())
+                .setOnInsert("count", aggregate.getCount())
+                .setOnInsert("histogram", aggregate.getHistogram()));
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(movieId)),
+                update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                MovieRatingAggregate.class);
+    }
+
+    private static RatingDistributionDTO toDistribution(String movieId, MovieRatingAggregate aggregate) {
+        RatingDistributionDTO distribution = new RatingDistributionDTO();
+        distribution.setMovieId(movieId);
+        for (Score score : Score.values()) {
+            Long count = aggregate != null ? aggregate.getHistogram().get(score) : null;
+            distribution.getCounts().put(score, count != null ? count : 0L);
+        }
+        if (aggregate != null) {
+            distribution.setTotal(aggregate.getCount());
+            distribution.setAverage(aggregate.getAverage());
+        }
+        return distribution;
+    }
+
+    private static Update pendingPublish(Update update) {
+        return update.currentDate("updatedAt")
+                .inc("revision", 1L)
+                .set("publishPending", true)
+                .set("publishAttempts", 0)
+                .unset("nextPublishAt");
+    }
+
+    private static void count(MovieRatingAggregate aggregate, Score score, long count) {
+        aggregate.getHistogram().merge(score, count, Long::sum);
+        aggregate.setSum(aggregate.getSum() + (long) score.getValue() * count);
+        aggregate.setCount(aggregate.getCount() + count);
+    }
+
+    //El promedio recalculado puede diferir del publicado
+    private static void replace(BulkOperations bulk, MovieRatingAggregate aggregate) {
+        bulk.upsert(Query.query(Criteria.where("_id").is(aggregate.getMovieId())), pendingPublish(new Update()
+                .set("sum", aggregate.getSum())
+                .set("count", aggregate.getCount())
+                .set("histogram", aggregate.getHistogram())));
+    }
+
+    private Instant serverTime() {
+        Document hello = mongoTemplate.executeCommand(new Document("hello", 1));
+        return hello.getDate("localTime").toInstant();
+    }
+}
@@ -1,28 +1,72 @@
 package com.example.rating_service.service;
 
-import com.example.rating_service.client.CatalogClient;
+import com.example.rating_service.cache.KnownMovieIds;
 import com.example.rating_service.dtos.*;
 import com.example.rating_service.enums.Score;
 import com.example.rating_service.exception.MovieNotFoundById;
 import com.example.rating_service.exception.RatingNotFoundException;
+import com.example.rating_service.ingest.RatingBatchWriter;
+import com.example.rating_service.ingest.RatingWriteBehindQueue;
 import com.example.rating_service.mapper.RatingMapper;
+import com.example.rating_service.models.MovieRatingAggregate;
 import com.example.rating_service.models.Rating;
+import com.example.rating_service.repository.RatingCursor;
 import com.example.rating_service.repository.RatingRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class RatingService {
+    //Solo la primera página (tamaño por defecto) de /rating/byMovie de cada película
+    public static final String FIRST_PAGE_CACHE = "ratingsByMovieFirstPage";
+
     @Autowired
     private RatingMapper ratingMapper;
     @Autowired
     private RatingRepository ratingRepository;
     @Autowired
-    private CatalogClient catalogClient;
+    private RatingAggregateService ratingAggregateService;
+    @Autowired
+    private RatingBatchWriter ratingBatchWriter;
+    @Autowired
+    private MovieLockStripes movieLocks;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    //Solo con rating.ingest.mode=write-behind
+    @Autowired(required = false)
+    private RatingWriteBehindQueue ratingWriteBehindQueue;
+
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private KnownMovieIds knownMovieIds;
+
+    @Value("${rating.ingest.flush-timeout:5s}")
+    private Duration ingestFlushTimeout;
+    @Value("${rating.by-movie.page-size:50}")
+    private int defaultPageSize;
+    @Value("${rating.by-movie.max-page-size:500}")
+    private int maxPageSize;
 
     //Operation CRUD:
     //Create Ratings
@@ -33,11 +77,19 @@ public class RatingService {
         if (ratingList == null || ratingList.isEmpty()) {
             throw new IllegalArgumentException("The rating list cannot be empty");
         }
-        return ratingRepository.saveAll(ratingList);
+        //$inc antes de guardar (ver RatingAggregateService); si falla parte del insert se descuentan solo los ratings
+        //que no se escribieron. Un id que ya existe se rechaza (para cambiar un rating está changeRating)
+        List<Rating> saved = ratingBatchWriter.create(ratingList);
+        evictFirstPages(saved.stream().map(Rating::getMovieId).distinct().toList());
+        return saved;
     }
 
-    //We create a new rating from user and update score in catalog service
-    @CacheEvict(value = {"ratings", "allRatings", "ratingsByMovie"}, allEntries = true)
+    //We create a new rating from user; the new average reaches catalog service asynchronously (ScorePublisher)
+    @Caching(evict = {
+            @CacheEvict(value = {"ratings", "allRatings"}, allEntries = true),
+            //Solo la primera página de esta película
+            @CacheEvict(value = FIRST_PAGE_CACHE, key = "#ratingDTO.movieId")
+    })
     public RatingAverageDTO saveRatingAndUpdateCatalog(RatingUserDTO ratingDTO) {
         // Create rating
         Rating rating = new Rating();
@@ -45,25 +97,38 @@ public class RatingService {
         rating.setUserId(ratingDTO.getUserId());
         rating.setScore(Score.from(ratingDTO.getScore()));
         rating.setComment(ratingDTO.getComment());
-        ratingRepository.save(rating);
 
-        // 2. Get all ratings from rating:
-        List<Rating> ratings = ratingRepository.findByMovieId(ratingDTO.getMovieId());
+        MovieRatingAggregate aggregate;
+        if (ratingWriteBehindQueue != null) {
+            // 1-2. Write-behind: the rating and its aggregate are written with the rest of its batch
+            CompletableFuture<MovieRatingAggregate> written = ratingWriteBehindQueue.submit(rating);
+            aggregate = ratingWriteBehindQueue.isAckOnEnqueue() ? null : await(written);
+            if (aggregate == null) {
+                //Todavía no se conoce el nuevo promedio
+                RatingAverageDTO queued = new RatingAverageDTO();
+                queued.setMovieId(ratingDTO.getMovieId());
+                return queued;
+            }
+        } else {
+            // 1. Update the movie aggregate ($inc of sum, count and histogram) and read the new average from it:
+            //O(1) por rating, sin volver a leer los ratings de la película. Es atómico en MongoDB, así que dos ratings
+            //concurrentes de la misma película no se pisan (cada uno ve el promedio con el suyo incluido)
+            aggregate = ratingAggregateService.added(rating.getMovieId(), rating.getScore());
 
-        // 3. Calculation for average score
-        double average = ratings.stream()
-                .map(Rating::getScore)
-                .mapToInt(Score::getValue)
-                .average()
-                .orElse(0.0);
+            // 2. Save the rating; if it fails the aggregate is compensated
+            try {
+                ratingRepository.save(rating);
+            } catch (RuntimeException ex) {
+                ratingAggregateService.removed(rating.getMovieId(), rating.getScore());
+                throw ex;
+            }
+        }
+        double average = aggregate.getAverage();
 
-        // 4. Update ratingAverage in catalog service
-        RatingScoreDTO dto = new RatingScoreDTO();
-        dto.setMovieId(ratingDTO.getMovieId());
-        dto.setRatingAverage(average);
-        catalogClient.updateScore(dto);
+        // 3. ratingAverage in catalog service: the same $inc left it pending in the outbox,
+        //ScorePublisher sends it (coalesced per movie) in the next batch
 
-        // 5. Return dto with average and movie id:
+        // 4. Return dto with average and movie id:
         RatingAverageDTO averageDTO = new RatingAverageDTO();
         averageDTO.setMovieId(ratingDTO.getMovieId());
         averageDTO.setAverageScore(average);
@@ -71,8 +136,26 @@ public class RatingService {
     }
 
 
+    //null si el lote no se escribió dentro de flush-timeout: el rating sigue en la cola (se responde como encolado)
+    private MovieRatingAggregate await(CompletableFuture<MovieRatingAggregate> written) {
+        try {
+            return written.get(ingestFlushTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(ex.getCause());
+        }
+    }
+
     //Get all ratings:
-    @Cacheable(value = "allRatings")
+    //sync = true: cuando vence, una sola carga de MongoDB por réplica y por clave (ver SingleFlightCache)
+    @Cacheable(value = "allRatings", sync = true)
     public List<Rating> findAllRating() {
         return ratingRepository.findAll();
     }
@@ -86,37 +169,122 @@ public class RatingService {
                 .orElseThrow(() -> new RatingNotFoundException(id));
     }
 
-    @Cacheable(value = "ratingsByMovie", key = "#movieId")
-    public List<Rating> findAllByMovieId(String movieId) {
-        //Call feign client to get movie
-        CatalogDTO movie = catalogClient.getById(movieId);
-        //Throw exception if it doesn't exist
-        if (movie == null) {
+    //Ratings de una película por cursor, más nuevos primero: ?after=<nextCursor de la página anterior>&limit=
+    //Solo se cachea la primera página con el tamaño por defecto; las demás van directo al índice movie_created_idx
+    @Cacheable(value = FIRST_PAGE_CACHE, key = "#movieId", condition = "#after == null && #limit == null")
+    public RatingPageDTO findPageByMovieId(String movieId, String after, Integer limit) {
+        RatingCursor cursor = after == null ? null : RatingCursor.decode(after);
+        //Check the movie against the local copy of catalog ids (catalog-service only if it doesn't know it);
+        //las páginas siguientes ya la validaron
+        if (cursor == null && !knownMovieIds.exists(movieId)) {
+            //Throw exception if it doesn't exist
             throw new MovieNotFoundById(movieId);
-        } else {
-            List<Rating> ratings = ratingRepository.findByMovieId(movieId);
-            return ratings;
         }
+        int size = Math.min(limit == null ? defaultPageSize : limit, maxPageSize);
+        //Pedimos uno de más para saber si hay página siguiente
+        List<Rating> ratings = ratingRepository.findPageByMovie(movieId, cursor, size + 1);
+        if (ratings.size() <= size) {
+            return new RatingPageDTO(ratings, null);
+        }
+        List<Rating> page = ratings.subList(0, size);
+        return new RatingPageDTO(new ArrayList<>(page), RatingCursor.of(page.get(size - 1)).encode());
     }
 
 
     //Update a rating
-    @CacheEvict(value = {"ratings", "allRatings", "ratingsByMovie"}, allEntries = true)
-    //value = {"ratings", "allRatings", "ratingsByMovie"} → Limpia todos los espacios de caché relacionados.
+    @CacheEvict(value = {"ratings", "allRatings"}, allEntries = true)
+    //value = {"ratings", "allRatings"} → Limpia todos los espacios de caché relacionados.
     //allEntries = true → Elimina todas las entradas dentro de cada espacio de caché listado.
+    //La primera página por película se borra solo para la película anterior y la nueva (evictFirstPages)
     public RatingDTO changeRating(String id, RatingDTO ratingDTO) {
-        Rating updatedRating = findById(id);
-        ratingMapper.updateRatingToDto(ratingDTO, updatedRating);
-        Rating saved = ratingRepository.save(updatedRating);
-        return ratingMapper.toDTO(saved);
+        //Compare-and-set: el rating se reemplaza solo si sigue con la película y el score que se descontaron;
+        //si otro request lo cambió en el medio, se deshace el $inc y se reintenta con el valor nuevo
+        while (true) {
+            Rating before = ratingRepository.findById(id)
+                    .orElseThrow(() -> new RatingNotFoundException(id));
+            Rating updatedRating = copyOf(before);
+            ratingMapper.updateRatingToDto(ratingDTO, updatedRating);
+            //Las dos películas desde el principio (en orden): el seed del agregado de la nueva toma su lock
+            Rating saved = movieLocks.withLocks(before.getMovieId(), updatedRating.getMovieId(), () -> {
+                ratingAggregateService.changed(before, updatedRating);
+                Rating replaced = mongoTemplate.findAndReplace(unchanged(before), updatedRating,
+                        FindAndReplaceOptions.options().returnNew());
+                if (replaced == null) {
+                    ratingAggregateService.changed(updatedRating, before);
+                }
+                return replaced;
+            });
+            if (saved != null) {
+                evictFirstPages(List.of(before.getMovieId(), saved.getMovieId()));
+                return ratingMapper.toDTO(saved);
+            }
+        }
     }
 
     //Delete rating
-    @CacheEvict(value = {"ratings", "allRatings", "ratingsByMovie"}, allEntries = true)
+    @CacheEvict(value = {"ratings", "allRatings"}, allEntries = true)
     public void removeRating(String id) {
-        Rating rating = ratingRepository.findById(id)
-                .orElseThrow(() -> new RatingNotFoundException(id));
-        ratingRepository.deleteById(id);
+        //Igual que changeRating: solo el request que efectivamente borra el rating deja descontado su score
+        while (true) {
+            Rating rating = ratingRepository.findById(id)
+                    .orElseThrow(() -> new RatingNotFoundException(id));
+            boolean deleted = movieLocks.withLock(rating.getMovieId(), () -> {
+                ratingAggregateService.removed(rating.getMovieId(), rating.getScore());
+                if (mongoTemplate.findAndRemove(unchanged(rating), Rating.class) == null) {
+                    ratingAggregateService.added(rating.getMovieId(), rating.getScore());
+                    return false;
+                }
+                return true;
+            });
+            if (deleted) {
+                evictFirstPages(List.of(rating.getMovieId()));
+                return;
+            }
+        }
+    }
+
+    private void evictFirstPages(Collection<String> movieIds) {
+        Cache firstPages = cacheManager.getCache(FIRST_PAGE_CACHE);
+        if (firstPages != null) {
+            movieIds.forEach(firstPages::evict);
+        }
+    }
+
+    //El rating tal como se leyó (misma película y score)
+    private static Query unchanged(Rating rating) {
+        return Query.query(Criteria.where("_id").is(rating.getId())
+                .and("movieId").is(rating.getMovieId())
+                .and("score").is(rating.getScore()));
+    }
+
+    private static Rating copyOf(Rating rating) {
+        Rating copy = new Rating();
+        copy.setId(rating.getId());
+        copy.setUserId(rating.getUserId());
+        copy.setMovieId(rating.getMovieId());
+        copy.setScore(rating.getScore());
+        copy.setComment(rating.getComment());
+        copy.setCreatedAt(rating.getCreatedAt());
+        return copy;
+    }
+
+    //Sum, count, average and histogram of a movie's ratings
+    public MovieRatingAggregate findAggregate(String movieId) {
+        return ratingAggregateService.find(movieId);
+    }
+
+    //Ratings per Score of a movie, from its aggregate
+    public RatingDistributionDTO findDistribution(String movieId) {
+        return ratingAggregateService.distribution(movieId);
+    }
+
+    public List<RatingDistributionDTO> findDistributions(List<String> movieIds) {
+        return ratingAggregateService.distributions(movieIds);
+    }
+
+    //Recalculate every aggregate from the rating collection
+    public int rebuildAggregates() {
+        return ratingAggregateService.rebuildAll();
     }
 
 }
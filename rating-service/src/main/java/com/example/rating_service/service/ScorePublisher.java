@@ -0,0 +1,169 @@
+package com.example.rating_service.service;
+
+import com.example.rating_service.client.CatalogClient;
+import com.example.rating_service.dtos.RatingScoreDTO;
+import com.example.rating_service.models.MovieRatingAggregate;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+//Publica los promedios a catalog-service de forma asíncrona, fuera del request del rating.
+//El outbox son los MovieRatingAggregate con publishPending = true: persistente (sobrevive a un crash)
+//y agrupado por película (varios ratings de la misma película en una ventana = un solo envío con el último promedio).
+//Cada interval se mandan hasta batch-size promedios en un PUT /catalog/updateScores; si falla se reintenta
+//con backoff exponencial por película. Una sola réplica publica a la vez (lease en score_publisher_lock),
+//así dos réplicas no mandan promedios de la misma película fuera de orden.
+//El lease se renueva antes de cada lote y un PUT no puede durar más que el lease (timeouts de Feign menores),
+//así ningún lote sale con el lease ya vencido.
+@Service
+public class ScorePublisher {
+    private static final Logger log = LoggerFactory.getLogger(ScorePublisher.class);
+    private static final String LOCK_COLLECTION = "score_publisher_lock";
+    private static final String LOCK_ID = "score-publisher";
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private CatalogClient catalogClient;
+
+    @Value("${rating.score-propagation.batch-size:500}")
+    private int batchSize;
+    @Value("${rating.score-propagation.lease:30s}")
+    private Duration lease;
+    @Value("${rating.score-propagation.retry-backoff:1s}")
+    private Duration retryBackoff;
+
+    //Timeouts del cliente Feign de catalog-service: un PUT tiene que terminar antes de que venza el lease
+    @Value("${spring.cloud.openfeign.client.config.catalog-service.connect-timeout:10000}")
+    private long connectTimeoutMillis;
+    @Value("${spring.cloud.openfeign.client.config.catalog-service.read-timeout:60000}")
+    private long readTimeoutMillis;
+
+    private final String owner = ManagementFactory.getRuntimeMXBean().getName();
+
+    @PostConstruct
+    void checkLease() {
+        Duration sendTimeout = Duration.ofMillis(connectTimeoutMillis + readTimeoutMillis);
+        if (sendTimeout.compareTo(lease) >= 0) {
+            throw new IllegalStateException("rating.score-propagation.lease (" + lease
+                    + ") must be longer than the catalog-service Feign timeouts (" + sendTimeout + ")");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rating.score-propagation.interval:1s}",
+            initialDelayString = "${rating.score-propagation.interval:1s}")
+    public void publishPending() {
+        try {
+            flush();
+        } catch (DataAccessException ex) {
+            log.debug("Could not publish rating averages: {}", ex.getMessage());
+        }
+    }
+
+    //Manda todo lo pendiente en lotes mientras esta réplica tenga el lease; devuelve cuántos promedios quedaron publicados
+    public int flush() {
+        int published = 0;
+        List<MovieRatingAggregate> batch;
+        do {
+            //Renovar antes de cada lote: el lote siguiente arranca con el lease entero por delante
+            if (!acquireLease()) {
+                break;
+            }
+            batch = nextBatch();
+            if (batch.isEmpty()) {
+                break;
+            }
+            if (!send(batch)) {
+                break;
+            }
+            published += batch.size();
+        } while (batch.size() == batchSize);
+        return published;
+    }
+
+    private List<MovieRatingAggregate> nextBatch() {
+        Query query = Query.query(Criteria.where("publishPending").is(true)
+                        .orOperator(Criteria.where("nextPublishAt").exists(false),
+                                Criteria.where("nextPublishAt").lte(Instant.now())))
+                .limit(batchSize);
+        query.fields().include("sum", "count", "revision", "publishAttempts");
+        return mongoTemplate.find(query, MovieRatingAggregate.class);
+    }
+
+    private boolean send(List<MovieRatingAggregate> batch) {
+        List<RatingScoreDTO> scores = batch.stream().map(aggregate -> {
+            RatingScoreDTO dto = new RatingScoreDTO();
+            dto.setMovieId(aggregate.getMovieId());
+            dto.setRatingAverage(aggregate.getAverage());
+            return dto;
+        }).toList();
+        try {
+            catalogClient.updateScores(scores);
+        } catch (RuntimeException ex) {
+            log.warn("Could not send {} rating averages to catalog-service: {}", scores.size(), ex.getMessage());
+            scheduleRetry(batch);
+            return false;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MovieRatingAggregate.class);
+        for (MovieRatingAggregate aggregate : batch) {
+            //Si cambió mientras se enviaba (otra revision), queda pendiente y sale en el próximo lote
+            bulk.updateOne(Query.query(Criteria.where("_id").is(aggregate.getMovieId())
+                            .and("revision").is(aggregate.getRevision())),
+                    new Update().set("publishPending", false).set("publishAttempts", 0).unset("nextPublishAt"));
+        }
+        bulk.execute();
+        return true;
+    }
+
+    private void scheduleRetry(List<MovieRatingAggregate> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MovieRatingAggregate.class);
+        Instant now = Instant.now();
+        for (MovieRatingAggregate aggregate : batch) {
+            int attempts = aggregate.getPublishAttempts() + 1;
+            Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+            if (backoff.compareTo(MAX_BACKOFF) > 0) {
+                backoff = MAX_BACKOFF;
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(aggregate.getMovieId())
+                            .and("revision").is(aggregate.getRevision())),
+                    new Update().set("publishAttempts", attempts).set("nextPublishAt", now.plus(backoff)));
+        }
+        bulk.execute();
+    }
+
+    //Toma (o renueva) el lease si está libre, vencido o ya es de esta instancia
+    private boolean acquireLease() {
+        Instant now = Instant.now();
+        Query free = Query.query(Criteria.where("_id").is(LOCK_ID)
+                .orOperator(Criteria.where("leaseUntil").lt(now), Criteria.where("owner").is(owner)));
+        try {
+            Document lock = mongoTemplate.findAndModify(free,
+                    new Update().set("owner", owner).set("leaseUntil", now.plus(lease)),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    Document.class, LOCK_COLLECTION);
+            return lock != null;
+        } catch (DuplicateKeyException ex) {
+            //Lo tiene otra réplica: el upsert chocó con su documento
+            return false;
+        }
+    }
+}
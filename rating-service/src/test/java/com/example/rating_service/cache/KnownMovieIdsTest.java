@@ -0,0 +1,105 @@
+package com.example.rating_service.cache;
+
+import com.example.rating_service.client.CatalogClient;
+import com.example.rating_service.dtos.CatalogChangesDTO;
+import com.example.rating_service.dtos.CatalogDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class KnownMovieIdsTest {
+
+    private CatalogClient catalogClient;
+    private SimpleMeterRegistry meterRegistry;
+    private KnownMovieIds knownMovieIds;
+
+    @BeforeEach
+    void setUp() {
+        catalogClient = mock(CatalogClient.class);
+        meterRegistry = new SimpleMeterRegistry();
+        knownMovieIds = new KnownMovieIds(catalogClient, meterRegistry, 2);
+    }
+
+    @Test
+    @DisplayName("Should load every page of changes and answer from memory without calling catalog-service")
+    void sync_ShouldLoadAllPages() {
+        when(catalogClient.getChanges(0, 2)).thenReturn(changes(List.of("C1", "C2"), List.of(), 2, true));
+        when(catalogClient.getChanges(2, 2)).thenReturn(changes(List.of("C3"), List.of("C1"), 4, false));
+
+        knownMovieIds.sync();
+
+        assertTrue(knownMovieIds.isReady());
+        assertTrue(knownMovieIds.exists("C2"));
+        assertTrue(knownMovieIds.exists("C3"));
+        verify(catalogClient, never()).getById(anyString());
+        assertEquals(2.0, meterRegistry.get("rating.movie.filter.size").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should ask catalog-service for an unknown id and count the correction when it exists")
+    void exists_ShouldCorrectStaleFilter() {
+        when(catalogClient.getChanges(0, 2)).thenReturn(changes(List.of("C1"), List.of(), 1, false));
+        knownMovieIds.sync();
+        when(catalogClient.getById("C9")).thenReturn(movie("C9"));
+
+        assertTrue(knownMovieIds.exists("C9"));
+        assertTrue(knownMovieIds.exists("C9"));
+        assertFalse(knownMovieIds.exists("C8"));
+
+        verify(catalogClient, times(1)).getById("C9");
+        assertEquals(1.0, meterRegistry.get("rating.movie.filter.corrections").counter().count());
+        assertEquals(2.0, meterRegistry.get("rating.movie.filter.fallbacks").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should apply deletes from the delta sync, resuming from the last version received")
+    void sync_ShouldApplyDeltas() {
+        when(catalogClient.getChanges(0, 2)).thenReturn(changes(List.of("C1"), List.of(), 100, false));
+        knownMovieIds.sync();
+        when(catalogClient.getChanges(100, 2)).thenReturn(changes(List.of(), List.of("C1"), 101, false));
+
+        knownMovieIds.sync();
+
+        assertFalse(knownMovieIds.exists("C1"));
+        verify(catalogClient).getById("C1");
+    }
+
+    @Test
+    @DisplayName("Should keep asking catalog-service while the first load fails")
+    void exists_ShouldFallBack_WhenNotLoaded() {
+        when(catalogClient.getChanges(anyLong(), anyInt())).thenThrow(new RuntimeException("catalog down"));
+        when(catalogClient.getById("C1")).thenReturn(movie("C1"));
+
+        knownMovieIds.sync();
+
+        assertFalse(knownMovieIds.isReady());
+        assertTrue(knownMovieIds.exists("C1"));
+        assertTrue(knownMovieIds.exists("C1"));
+        verify(catalogClient, times(2)).getById(eq("C1"));
+        assertEquals(0.0, meterRegistry.get("rating.movie.filter.corrections").counter().count());
+    }
+
+    private static CatalogChangesDTO changes(List<String> upserts, List<String> deleted, long version, boolean hasMore) {
+        CatalogChangesDTO changes = new CatalogChangesDTO();
+        changes.setUpserts(upserts.stream().map(KnownMovieIdsTest::movie).toList());
+        changes.setDeleted(deleted);
+        changes.setVersion(version);
+        changes.setHasMore(hasMore);
+        return changes;
+    }
+
+    private static CatalogDTO movie(String movieId) {
+        CatalogDTO movie = new CatalogDTO();
+        movie.setMovieId(movieId);
+        return movie;
+    }
+}
@@ -10,9 +10,11 @@ import com.example.rating_service.dtos.RatingDTO;
 import com.example.rating_service.dtos.RatingUserDTO;
 import com.example.rating_service.enums.Score;
 import com.example.rating_service.mapper.RatingMapper;
+import com.example.rating_service.models.MovieRatingAggregate;
 import com.example.rating_service.models.Rating;
 import com.example.rating_service.repository.RatingRepository;
 import com.example.rating_service.service.RatingService;
+import com.example.rating_service.service.ScorePublisher;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -24,6 +26,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
@@ -75,6 +78,12 @@ public class RatingControllerIntegTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ScorePublisher scorePublisher;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     private Rating rating1;
     private Rating rating2;
     private Rating rating3;
@@ -96,6 +105,7 @@ public class RatingControllerIntegTest {
     @BeforeEach
     void  setUp(){
         ratingRepository.deleteAll();
+        mongoTemplate.dropCollection(MovieRatingAggregate.class);
 
         rating1= new Rating();
         rating1.setId("1L");
@@ -178,8 +188,8 @@ public class RatingControllerIntegTest {
     void addAndCalculateAverage_ShouldReturnCreated() throws Exception {
         // Guardamos ratings previos en la base para simular datos existentes
         ratingRepository.saveAll(ratingList);
-        // Cuando el service llame al catalogClient.updateScore, simplemente hacemos nada
-        when(catalogClient.updateScore(any())).thenReturn(null);
+        // Cuando el publisher llame al catalogClient.updateScores, simplemente hacemos nada
+        when(catalogClient.updateScores(any())).thenReturn(null);
 
 
         // Llamamos al endpoint usando MockMvc
@@ -189,10 +199,15 @@ public class RatingControllerIntegTest {
                 .andExpect(status().isCreated())
                 .andExpect(jsonPath("$.movieId").value("C3"))
                 .andExpect(jsonPath("$.averageScore").value(4.5))
-                .andExpect(jsonPath("$.message").value("Rating added and catalog updated successfully"));
+                .andExpect(jsonPath("$.message").value("Rating added, catalog score update queued"));
 
-        // Verificamos que catalogClient.updateScore haya sido llamado exactamente una vez
-        verify(catalogClient, times(1)).updateScore(any());
+        // El request no llama a catalog-service: el promedio queda pendiente hasta que publica ScorePublisher
+        verify(catalogClient, never()).updateScore(any());
+        verify(catalogClient, never()).updateScores(any());
+
+        assertEquals(1, scorePublisher.flush());
+        verify(catalogClient, times(1)).updateScores(argThat(dtos ->
+                dtos.size() == 1 && dtos.get(0).getMovieId().equals("C3") && dtos.get(0).getRatingAverage() == 4.5));
     }
 
     @Test
@@ -234,15 +249,37 @@ public class RatingControllerIntegTest {
         mockMvc.perform(get("/rating/byMovie/{movieId}", rating1.getMovieId())
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].movieId").value("C1"));
+                .andExpect(jsonPath("$.content[0].movieId").value("C1"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
 
         verify(catalogClient, times(1)).getById("C1");
 
+        mockMvc.perform(get("/rating/byMovie/{movieId}", rating1.getMovieId())
+                        .param("after", "not a cursor"))
+                .andExpect(status().isBadRequest());
+
         List<Rating> result = ratingRepository.findByMovieId(rating1.getMovieId());
         assertEquals("C1", result.get(0).getMovieId());
         assertEquals(1, result.size());
     }
 
+    @Test
+    @DisplayName("Should return the score distribution of a movie and reject an empty batch")
+    void getDistribution_ShouldReturnCounts() throws Exception{
+        ratingService.createRating(List.of(rating1));
+
+        mockMvc.perform(get("/rating/distribution/{movieId}", rating1.getMovieId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.counts.THREE_STARS").value(1))
+                .andExpect(jsonPath("$.counts.FIVE_STARS").value(0));
+
+        mockMvc.perform(post("/rating/distribution")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Should return a rating updated")
     void updateRating_shouldReturnRating() throws  Exception{
@@ -0,0 +1,184 @@
+package com.example.rating_service.ingest;
+
+import com.example.rating_service.enums.Score;
+import com.example.rating_service.exception.RatingAlreadyExistsException;
+import com.example.rating_service.models.MovieRatingAggregate;
+import com.example.rating_service.models.Rating;
+import com.example.rating_service.service.RatingAggregateService;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RatingBatchWriterTest {
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulk;
+    private RatingAggregateService ratingAggregateService;
+    private RatingBatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        ratingAggregateService = mock(RatingAggregateService.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Rating.class)).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+        when(ratingAggregateService.addedAll(anyList())).thenAnswer(invocation -> aggregates(invocation.getArgument(0)));
+        when(ratingAggregateService.find(any())).thenAnswer(invocation -> new MovieRatingAggregate(invocation.getArgument(0)));
+        writer = new RatingBatchWriter(mongoTemplate, ratingAggregateService);
+    }
+
+    @Test
+    @DisplayName("Should compensate only the ratings that failed to insert")
+    void write_ShouldCompensateOnlyFailedRatings() {
+        List<Rating> batch = List.of(rating("C1"), rating("C2"), rating("C3"));
+        when(bulk.execute()).thenThrow(bulkFailure(new BulkWriteError(121, "validation", new BsonDocument(), 1)));
+
+        assertThrows(BulkOperationException.class, () -> writer.write(batch));
+
+        batch.forEach(rating -> assertNotNull(rating.getId()));
+        verify(ratingAggregateService).addedAll(batch);
+        verify(ratingAggregateService).removedAll(List.of(batch.get(1)));
+    }
+
+    @Test
+    @DisplayName("Should treat duplicate ids as already written")
+    void write_ShouldAcceptDuplicateKeys() {
+        List<Rating> batch = List.of(rating("C1"), rating("C2"));
+        when(bulk.execute()).thenThrow(bulkFailure(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0)));
+
+        Map<String, MovieRatingAggregate> aggregates = writer.write(batch);
+
+        assertEquals(Set.of("C1", "C2"), aggregates.keySet());
+        verify(ratingAggregateService, never()).removedAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should skip the ratings a previous attempt already wrote when the batch is retried")
+    void write_ShouldSkipWrittenRatings_OnRetry() {
+        List<Rating> batch = List.of(rating("C1"), rating("C2"));
+        batch.get(0).setId("65f000000000000000000001");
+        batch.get(1).setId("65f000000000000000000002");
+        //El primero entró en el intento anterior
+        when(mongoTemplate.find(any(Query.class), eq(Rating.class))).thenReturn(List.of(batch.get(0)));
+
+        Map<String, MovieRatingAggregate> aggregates = writer.write(batch);
+
+        verify(ratingAggregateService).addedAll(List.of(batch.get(1)));
+        verify(bulk).insert(List.of(batch.get(1)));
+        assertEquals(Set.of("C1", "C2"), aggregates.keySet());
+        verify(ratingAggregateService).find("C1");
+    }
+
+    @Test
+    @DisplayName("Should not compensate blindly when MongoDB cannot tell which ratings were written")
+    void write_ShouldMarkUnreconciled_WhenLookupFails() {
+        List<Rating> batch = List.of(rating("C1"), rating("C2"));
+        when(bulk.execute()).thenThrow(new DataAccessResourceFailureException("mongo down"));
+        when(mongoTemplate.find(any(Query.class), eq(Rating.class)))
+                .thenThrow(new DataAccessResourceFailureException("mongo down"));
+
+        UnreconciledWriteException ex = assertThrows(UnreconciledWriteException.class, () -> writer.write(batch));
+
+        assertEquals(Set.of("C1", "C2"), ex.getMovieIds());
+        assertEquals(Set.of("C1", "C2"), writer.getUnreconciled());
+        verify(ratingAggregateService, never()).removedAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should recount the unreconciled movies once MongoDB answers")
+    void reconcile_ShouldRecountUnreconciledMovies() {
+        when(ratingAggregateService.addedAll(anyList())).thenThrow(new DataAccessResourceFailureException("mongo down"));
+        assertThrows(UnreconciledWriteException.class, () -> writer.write(List.of(rating("C1"))));
+        when(ratingAggregateService.recount("C1"))
+                .thenThrow(new DataAccessResourceFailureException("mongo still down"))
+                .thenReturn(new MovieRatingAggregate("C1"));
+
+        writer.reconcile();
+        assertEquals(Set.of("C1"), writer.getUnreconciled());
+        writer.reconcile();
+
+        assertTrue(writer.getUnreconciled().isEmpty());
+        verify(ratingAggregateService, times(2)).recount("C1");
+        verify(bulk, never()).execute();
+    }
+
+    @Test
+    @DisplayName("Should reject new ratings whose id already exists instead of replacing them")
+    void create_ShouldRejectExistingIds() {
+        List<Rating> ratings = List.of(rating("C1"), rating("C2"));
+        ratings.get(0).setId("65f000000000000000000001");
+        when(mongoTemplate.find(any(Query.class), eq(Rating.class))).thenReturn(List.of(ratings.get(0)));
+
+        assertThrows(RatingAlreadyExistsException.class, () -> writer.create(ratings));
+
+        verify(ratingAggregateService, never()).addedAll(anyList());
+        verify(bulk, never()).execute();
+    }
+
+    @Test
+    @DisplayName("Should compensate only the new ratings that are not in the collection after a failed insert")
+    void create_ShouldCompensateOnlyUnwrittenRatings() {
+        List<Rating> ratings = List.of(rating("C1"), rating("C2"));
+        when(bulk.execute()).thenThrow(new DataAccessResourceFailureException("connection reset"));
+        //El primero entró antes de que se cortara la conexión
+        when(mongoTemplate.find(any(Query.class), eq(Rating.class))).thenReturn(List.of(ratings.get(0)));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> writer.create(ratings));
+
+        ratings.forEach(rating -> assertNotNull(rating.getCreatedAt()));
+        verify(ratingAggregateService).addedAll(ratings);
+        verify(ratingAggregateService).removedAll(List.of(ratings.get(1)));
+    }
+
+    @Test
+    @DisplayName("Should compensate a duplicate id of a new rating: another request wrote it first")
+    void create_ShouldCompensateDuplicateKeys() {
+        List<Rating> ratings = List.of(rating("C1"), rating("C2"));
+        when(bulk.execute()).thenThrow(bulkFailure(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0)));
+
+        assertThrows(BulkOperationException.class, () -> writer.create(ratings));
+
+        verify(ratingAggregateService).removedAll(List.of(ratings.get(0)));
+    }
+
+    private static BulkOperationException bulkFailure(BulkWriteError error) {
+        return new BulkOperationException(error.getMessage(), new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(error), null, new ServerAddress(), Set.of()));
+    }
+
+    private static Map<String, MovieRatingAggregate> aggregates(List<Rating> ratings) {
+        Map<String, MovieRatingAggregate> aggregates = new HashMap<>();
+        ratings.forEach(rating -> aggregates.computeIfAbsent(rating.getMovieId(), MovieRatingAggregate::new));
+        return aggregates;
+    }
+
+    private static Rating rating(String movieId) {
+        Rating rating = new Rating();
+        rating.setMovieId(movieId);
+        rating.setUserId("U1");
+        rating.setScore(Score.FOUR_STARS);
+        return rating;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.rating_service.ingest;
+
+import com.example.rating_service.enums.Score;
+import com.example.rating_service.models.MovieRatingAggregate;
+import com.example.rating_service.models.Rating;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RatingWriteBehindQueueTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<List<Rating>> flushed = new CopyOnWriteArrayList<>();
+    private RatingWriteBehindQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should group queued ratings into one flush and complete every caller with its movie aggregate")
+    void submit_ShouldGroupCommit() {
+        queue = new RatingWriteBehindQueue(100, 3, Duration.ofSeconds(5), false, this::recordFlush, meterRegistry);
+
+        List<CompletableFuture<MovieRatingAggregate>> results = new ArrayList<>();
+        results.add(queue.submit(rating("C1")));
+        results.add(queue.submit(rating("C2")));
+        results.add(queue.submit(rating("C1")));
+
+        assertEquals("C1", results.get(0).orTimeout(5, TimeUnit.SECONDS).join().getMovieId());
+        assertEquals("C2", results.get(1).join().getMovieId());
+        assertEquals(2, results.get(2).join().getCount());
+        assertEquals(1, flushed.size());
+        assertEquals(3, flushed.get(0).size());
+        assertEquals(3.0, meterRegistry.get("rating.ingest.flush.size").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("rating.ingest.flush.latency").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should flush a partial batch after max-delay")
+    void submit_ShouldFlushAfterMaxDelay() {
+        queue = new RatingWriteBehindQueue(100, 500, Duration.ofMillis(20), false, this::recordFlush, meterRegistry);
+
+        MovieRatingAggregate aggregate = queue.submit(rating("C1")).orTimeout(5, TimeUnit.SECONDS).join();
+
+        assertEquals(1, aggregate.getCount());
+        assertEquals(1, flushed.size());
+    }
+
+    @Test
+    @DisplayName("Should reject ratings when the queue is full")
+    void submit_ShouldRejectWhenFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch flushing = new CountDownLatch(1);
+        queue = new RatingWriteBehindQueue(1, 1, Duration.ofMillis(1), false, batch -> {
+            flushing.countDown();
+            await(release);
+            return recordFlush(batch);
+        }, meterRegistry);
+
+        //El primero queda bloqueado en el flush, el segundo ocupa la cola
+        queue.submit(rating("C1"));
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+        queue.submit(rating("C2"));
+
+        assertThrows(RejectedExecutionException.class, () -> queue.submit(rating("C3")));
+        assertEquals(1.0, meterRegistry.get("rating.ingest.rejected").counter().count());
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Should fail the waiting callers when the batch cannot be written")
+    void submit_ShouldFailCallers_WhenFlushFails() {
+        queue = new RatingWriteBehindQueue(100, 1, Duration.ofMillis(1), false, batch -> {
+            throw new IllegalStateException("mongo down");
+        }, meterRegistry);
+
+        CompletableFuture<MovieRatingAggregate> result = queue.submit(rating("C1"));
+
+        Exception ex = assertThrows(Exception.class, () -> result.orTimeout(5, TimeUnit.SECONDS).join());
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+
+    @Test
+    @DisplayName("Should not retry a batch whose outcome is unknown, even with durability=enqueue")
+    void submit_ShouldNotRetry_WhenBatchIsUnreconciled() {
+        AtomicInteger attempts = new AtomicInteger();
+        queue = new RatingWriteBehindQueue(100, 1, Duration.ofMillis(1), true, batch -> {
+            attempts.incrementAndGet();
+            throw new UnreconciledWriteException(Set.of("C1"), new IllegalStateException("mongo down"));
+        }, meterRegistry);
+
+        CompletableFuture<MovieRatingAggregate> result = queue.submit(rating("C1"));
+
+        Exception ex = assertThrows(Exception.class, () -> result.orTimeout(5, TimeUnit.SECONDS).join());
+        assertInstanceOf(UnreconciledWriteException.class, ex.getCause());
+        assertEquals(1, attempts.get());
+    }
+
+    //Simula insertMany + $inc: cuenta los ratings de cada película en el lote
+    private Map<String, MovieRatingAggregate> recordFlush(List<Rating> batch) {
+        flushed.add(batch);
+        Map<String, MovieRatingAggregate> aggregates = new HashMap<>();
+        for (Rating rating : batch) {
+            MovieRatingAggregate aggregate = aggregates.computeIfAbsent(rating.getMovieId(), MovieRatingAggregate::new);
+            aggregate.setCount(aggregate.getCount() + 1);
+        }
+        return aggregates;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Rating rating(String movieId) {
+        Rating rating = new Rating();
+        rating.setMovieId(movieId);
+        rating.setUserId("U1");
+        rating.setScore(Score.FOUR_STARS);
+        return rating;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.rating_service.repository;
+
+import com.example.rating_service.exception.InvalidCursorException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RatingCursorTest {
+
+    @Test
+    @DisplayName("Should decode the createdAt and id it was encoded with")
+    void encode_ShouldRoundTrip() {
+        RatingCursor cursor = RatingCursor.decode(new RatingCursor(LocalDate.of(2024, 1, 2), "66a1b2").encode());
+
+        assertEquals(LocalDate.of(2024, 1, 2), cursor.getCreatedAt());
+        assertEquals("66a1b2", cursor.getId());
+    }
+
+    @Test
+    @DisplayName("Should keep a missing createdAt as null")
+    void encode_ShouldKeepMissingDate() {
+        RatingCursor cursor = RatingCursor.decode(new RatingCursor(null, "1L").encode());
+
+        assertNull(cursor.getCreatedAt());
+        assertEquals("1L", cursor.getId());
+    }
+
+    @Test
+    @DisplayName("Should reject cursors that were not produced by the service")
+    void decode_ShouldRejectGarbage() {
+        assertThrows(InvalidCursorException.class, () -> RatingCursor.decode("not a cursor"));
+        assertThrows(InvalidCursorException.class, () -> RatingCursor.decode("bm9zZXBhcmF0b3I"));
+        assertThrows(InvalidCursorException.class, () -> RatingCursor.decode("MjAyNC0xMy0wMXwx"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.rating_service.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieLockStripesTest {
+
+    @Test
+    @DisplayName("Should always map a movie to the same stripe")
+    void stripeFor_ShouldBeStable() {
+        MovieLockStripes locks = new MovieLockStripes(8);
+
+        assertSame(locks.stripeFor("C1"), locks.stripeFor(new String("C1")));
+    }
+
+    @Test
+    @DisplayName("Should take a single lock when both movies share a stripe")
+    void withLocks_ShouldHandleSameStripe() {
+        MovieLockStripes locks = new MovieLockStripes(1);
+
+        assertEquals(1, locks.withLocks("C1", "C2", () -> locks.stripeFor("C1").getHoldCount()));
+    }
+
+    @Test
+    @DisplayName("Should serialize read-modify-write of the same movie across threads")
+    void withLock_ShouldSerializeSameMovie() throws Exception {
+        MovieLockStripes locks = new MovieLockStripes(8);
+        int[] counter = new int[1];
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(pool.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    locks.withLock("C1", () -> counter[0]++);
+                }
+            }));
+        }
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(80_000, counter[0]);
+    }
+
+    @Test
+    @DisplayName("Should not deadlock when two threads lock the same two movies in opposite order")
+    void withLocks_ShouldNotDeadlock_InOppositeOrder() throws Exception {
+        MovieLockStripes locks = new MovieLockStripes(8);
+        assertNotSame(locks.stripeFor("C1"), locks.stripeFor("C2"));
+        int[] counter = new int[1];
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+
+        //Como changeRating: las dos películas y, adentro, de nuevo el lock de la de destino (seed del agregado)
+        Future<?> forward = pool.submit(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                locks.withLocks("C1", "C2", () -> locks.withLock("C2", () -> counter[0]++));
+            }
+        });
+        Future<?> backward = pool.submit(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                locks.withLocks("C2", "C1", () -> locks.withLock("C1", () -> counter[0]++));
+            }
+        });
+        forward.get(30, TimeUnit.SECONDS);
+        backward.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertEquals(20_000, counter[0]);
+        assertFalse(locks.stripeFor("C1").isLocked());
+        assertFalse(locks.stripeFor("C2").isLocked());
+    }
+
+    @Test
+    @DisplayName("Should reject a non positive number of stripes")
+    void constructor_ShouldRejectZeroStripes() {
+        assertThrows(IllegalArgumentException.class, () -> new MovieLockStripes(0));
+    }
+}
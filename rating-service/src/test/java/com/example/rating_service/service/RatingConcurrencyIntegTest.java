@@ -0,0 +1,192 @@
+package com.example.rating_service.service;
+
+import com.example.rating_service.client.CatalogClient;
+import com.example.rating_service.config.CacheTestConfig;
+import com.example.rating_service.config.MongoTestConfig;
+import com.example.rating_service.config.RedisConfig;
+import com.example.rating_service.dtos.RatingDTO;
+import com.example.rating_service.dtos.RatingScoreDTO;
+import com.example.rating_service.dtos.RatingUserDTO;
+import com.example.rating_service.enums.Score;
+import com.example.rating_service.exception.RatingNotFoundException;
+import com.example.rating_service.models.MovieRatingAggregate;
+import com.example.rating_service.models.Rating;
+import com.example.rating_service.repository.RatingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+//Stress test: muchos hilos escriben, cambian y borran ratings de pocas películas mientras ScorePublisher publica.
+//Al final el último promedio que recibió catalog-service para cada película tiene que ser el promedio real.
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false"
+})
+@ActiveProfiles("test")
+@Import({MongoTestConfig.class, CacheTestConfig.class})
+@ImportAutoConfiguration(exclude = RedisConfig.class)
+@Testcontainers
+public class RatingConcurrencyIntegTest {
+
+    private static final List<String> MOVIES = List.of("C1", "C2", "C3", "C4");
+    private static final int THREADS = 16;
+    private static final int OPERATIONS_PER_THREAD = 150;
+
+    @Container
+    static MongoDBContainer mongoContainer = new MongoDBContainer("mongo:6.0");
+
+    @DynamicPropertySource
+    static void setProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongoContainer::getReplicaSetUrl);
+    }
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ScorePublisher scorePublisher;
+
+    @MockBean
+    private CatalogClient catalogClient;
+
+    //Último promedio recibido por película, en el orden en que llegaron
+    private final Map<String, Double> catalogScores = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        ratingRepository.deleteAll();
+        mongoTemplate.dropCollection(MovieRatingAggregate.class);
+        catalogScores.clear();
+        Mockito.when(catalogClient.updateScores(any())).thenAnswer(invocation -> {
+            List<RatingScoreDTO> scores = invocation.getArgument(0);
+            scores.forEach(score -> catalogScores.put(score.getMovieId(), score.getRatingAverage()));
+            return Map.of("requested", scores.size(), "matched", scores.size());
+        });
+    }
+
+    @Test
+    @DisplayName("Should publish the true mean of every movie after concurrent creates, changes and deletes")
+    void concurrentWrites_ShouldKeepCatalogScoreEqualToTrueMean() throws Exception {
+        //C1 ya tiene ratings sin agregado: el primer conteo compite con las escrituras concurrentes
+        List<Rating> existing = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            existing.add(rating("C1", Score.values()[i % Score.values().length]));
+        }
+        List<String> ids = new CopyOnWriteArrayList<>();
+        ratingRepository.saveAll(existing).forEach(saved -> ids.add(saved.getId()));
+
+        ExecutorService writers = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread publisher = new Thread(() -> {
+            while (writing.get()) {
+                scorePublisher.flush();
+            }
+        });
+        publisher.start();
+
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(writers.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    String movieId = MOVIES.get(random.nextInt(MOVIES.size()));
+                    Score score = Score.values()[random.nextInt(Score.values().length)];
+                    int operation = random.nextInt(10);
+                    if (operation < 4) {
+                        RatingUserDTO dto = new RatingUserDTO();
+                        dto.setMovieId(movieId);
+                        dto.setUserId("U" + i);
+                        dto.setScore(score.name());
+                        ratingService.saveRatingAndUpdateCatalog(dto);
+                    } else if (operation < 7) {
+                        ratingService.createRating(List.of(rating(movieId, score)))
+                                .forEach(saved -> ids.add(saved.getId()));
+                    } else if (operation < 9) {
+                        RatingDTO change = new RatingDTO();
+                        change.setScore(score);
+                        //A veces también cambia de película
+                        if (random.nextBoolean()) {
+                            change.setMovieId(movieId);
+                        }
+                        try {
+                            ratingService.changeRating(ids.get(random.nextInt(ids.size())), change);
+                        } catch (RatingNotFoundException ignored) {
+                            //Lo borró otro hilo
+                        }
+                    } else {
+                        try {
+                            ratingService.removeRating(ids.get(random.nextInt(ids.size())));
+                        } catch (RatingNotFoundException ignored) {
+                            //Ya borrado
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(2, TimeUnit.MINUTES);
+        }
+        writers.shutdown();
+        writing.set(false);
+        publisher.join();
+        scorePublisher.flush();
+
+        for (String movieId : MOVIES) {
+            List<Rating> ratings = ratingRepository.findByMovieId(movieId);
+            double trueMean = ratings.stream().mapToInt(r -> r.getScore().getValue()).average().orElse(0.0);
+
+            MovieRatingAggregate aggregate = mongoTemplate.findById(movieId, MovieRatingAggregate.class);
+            assertNotNull(aggregate, movieId);
+            assertEquals(ratings.size(), aggregate.getCount(), movieId);
+            assertFalse(aggregate.isPublishPending(), movieId);
+            assertEquals(trueMean, catalogScores.get(movieId), 1e-9, movieId);
+        }
+    }
+
+    private static Rating rating(String movieId, Score score) {
+        Rating rating = new Rating();
+        rating.setMovieId(movieId);
+        rating.setUserId("U1");
+        rating.setScore(score);
+        return rating;
+    }
+}
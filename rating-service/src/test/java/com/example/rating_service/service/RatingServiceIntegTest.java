@@ -7,11 +7,14 @@ import com.example.rating_service.config.RedisConfig;
 import com.example.rating_service.dtos.CatalogDTO;
 import com.example.rating_service.dtos.RatingAverageDTO;
 import com.example.rating_service.dtos.RatingDTO;
+import com.example.rating_service.dtos.RatingDistributionDTO;
+import com.example.rating_service.dtos.RatingPageDTO;
 import com.example.rating_service.dtos.RatingUserDTO;
 import com.example.rating_service.enums.Score;
 import com.example.rating_service.exception.MovieNotFoundById;
 import com.example.rating_service.exception.RatingNotFoundException;
 import com.example.rating_service.mapper.RatingMapper;
+import com.example.rating_service.models.MovieRatingAggregate;
 import com.example.rating_service.models.Rating;
 import com.example.rating_service.repository.RatingRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,6 +26,7 @@ import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -36,8 +40,10 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 
 @SpringBootTest(properties = {
@@ -75,6 +81,12 @@ public class RatingServiceIntegTest {
     @Autowired
     private RatingMapper ratingMapper;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ScorePublisher scorePublisher;
+
     @MockBean
     private CatalogClient catalogClient;
 
@@ -92,6 +104,7 @@ public class RatingServiceIntegTest {
     @BeforeEach
     void  setUp(){
         ratingRepository.deleteAll();
+        mongoTemplate.dropCollection(MovieRatingAggregate.class);
 
         rating1= new Rating();
         rating1.setId("1L");
@@ -193,19 +206,24 @@ public class RatingServiceIntegTest {
         double expectedAverage = (5 + 4) / 2.0;
         assertThat(ratingAverage.getAverageScore()).isEqualTo(expectedAverage);
 
+        // El promedio se publica de forma asíncrona: nada hasta que corre ScorePublisher
+        verify(catalogClient, never()).updateScore(any());
+        assertEquals(1, scorePublisher.flush());
+
         // Verificamos que el mock del microservicio CatalogClient
-        // haya sido llamado exactamente una vez
+        // haya sido llamado exactamente una vez, con un lote
         verify(catalogClient, times(1))
-                // Verificamos que el metodo updateScore haya
-                // sido llamado con un argumento (DTO) que cumpla ciertas condiciones
-                .updateScore(
-                        argThat(dto ->
+                // que tenga un solo DTO que cumpla ciertas condiciones
+                .updateScores(
+                        argThat(dtos ->
                                 // Condición 1: el movieId del DTO debe ser "C3"
-                                dto.getMovieId().equals("C3") &&
+                                dtos.size() == 1 && dtos.get(0).getMovieId().equals("C3") &&
                                         // Condición 2: el ratingAverage del DTO debe ser igual al promedio esperado calculado en la prueba
-                                        dto.getRatingAverage() == expectedAverage
+                                        dtos.get(0).getRatingAverage() == expectedAverage
                         )
                 );
+        // Ya publicado: no queda nada pendiente
+        assertEquals(0, scorePublisher.flush());
 
     }
 
@@ -257,7 +275,7 @@ public class RatingServiceIntegTest {
         Mockito.when(catalogClient.getById("C1")).thenReturn(catalogDTO);
 
         // Llamamos al metodo a probar, buscando por movieId "C1"
-        List<Rating> list = ratingService.findAllByMovieId("C1");
+        List<Rating> list = ratingService.findPageByMovieId("C1", null, null).getContent();
         assertNotNull(list);
         assertEquals(1, list.size());
 
@@ -271,6 +289,35 @@ public class RatingServiceIntegTest {
                 .getById("C1");
     }
 
+    @Test
+    @DisplayName("Should page ratings of a movie by cursor, newest first, without repeating or skipping")
+    void findPageByMovieId_ShouldFollowCursor(){
+        List<Rating> ratings = new java.util.ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Rating rating = new Rating();
+            rating.setId(String.format("%024x", i + 1));
+            rating.setUserId("U" + i);
+            rating.setMovieId("C1");
+            rating.setScore(Score.FOUR_STARS);
+            //Dos por día (y uno sin fecha): el _id desempata dentro del mismo createdAt
+            rating.setCreatedAt(i == 4 ? null : LocalDate.of(2024, 1, 1 + i / 2));
+            ratings.add(rating);
+        }
+        mongoTemplate.insertAll(ratings);
+        Mockito.when(catalogClient.getById("C1")).thenReturn(catalogDTO);
+
+        RatingPageDTO first = ratingService.findPageByMovieId("C1", null, 2);
+        RatingPageDTO second = ratingService.findPageByMovieId("C1", first.getNextCursor(), 2);
+        RatingPageDTO third = ratingService.findPageByMovieId("C1", second.getNextCursor(), 2);
+
+        assertEquals(List.of("U3", "U2"), first.getContent().stream().map(Rating::getUserId).toList());
+        assertEquals(List.of("U1", "U0"), second.getContent().stream().map(Rating::getUserId).toList());
+        assertEquals(List.of("U4"), third.getContent().stream().map(Rating::getUserId).toList());
+        assertNull(third.getNextCursor());
+        //Solo la primera página consulta catalog-service
+        verify(catalogClient, times(1)).getById("C1");
+    }
+
     @Test
     @DisplayName("Should throw MovieNotFoundById when movie does not exist (Integration Test)")
     void findByMovieId_ShouldReturnException_WhenMovieNotFound(){
@@ -278,7 +325,7 @@ public class RatingServiceIntegTest {
 
         Mockito.when(catalogClient.getById("C1")).thenReturn(null);
         MovieNotFoundById exception= assertThrows(MovieNotFoundById.class,
-                ()->  ratingService.findAllByMovieId("C1"));
+                ()->  ratingService.findPageByMovieId("C1", null, null));
 
         assertEquals("Movie with id: C1 not found.", exception.getMessage());
     }
@@ -320,4 +367,95 @@ public class RatingServiceIntegTest {
     }
 
 
+    @Test
+    @DisplayName("Should keep the movie aggregate in sync with $inc on create, update and delete")
+    void aggregate_ShouldFollowRatingWrites(){
+        ratingService.createRating(List.of(rating1, rating3));
+        ratingService.saveRatingAndUpdateCatalog(ratingUserDTO);
+
+        MovieRatingAggregate c3 = ratingService.findAggregate("C3");
+        assertEquals(2, c3.getCount());
+        assertEquals(9, c3.getSum());
+        assertEquals(4.5, c3.getAverage());
+        assertEquals(1L, c3.getHistogram().get(Score.FIVE_STARS));
+
+        ratingService.changeRating(rating1.getId(), ratingDTO);
+        MovieRatingAggregate c1 = ratingService.findAggregate("C1");
+        assertEquals(1, c1.getCount());
+        assertEquals(4.0, c1.getAverage());
+        assertEquals(0L, c1.getHistogram().get(Score.THREE_STARS));
+
+        ratingService.removeRating(rating3.getId());
+        assertEquals(4.0, ratingService.findAggregate("C3").getAverage());
+    }
+
+    @Test
+    @DisplayName("Should keep a movie pending and back off when catalog-service fails")
+    void flush_ShouldRetryLater_WhenCatalogFails(){
+        Mockito.when(catalogClient.updateScores(any())).thenThrow(new RuntimeException("catalog down"));
+        ratingService.createRating(List.of(rating1));
+
+        assertEquals(0, scorePublisher.flush());
+
+        MovieRatingAggregate c1 = mongoTemplate.findById("C1", MovieRatingAggregate.class);
+        assertTrue(c1.isPublishPending());
+        assertEquals(1, c1.getPublishAttempts());
+        assertNotNull(c1.getNextPublishAt());
+        // Dentro del backoff no se reintenta
+        assertEquals(0, scorePublisher.flush());
+        verify(catalogClient, times(1)).updateScores(any());
+    }
+
+    @Test
+    @DisplayName("Should return the score distribution of one or many movies from their aggregates")
+    void findDistribution_ShouldUseAggregates(){
+        ratingService.createRating(List.of(rating1, rating3));
+        ratingService.saveRatingAndUpdateCatalog(ratingUserDTO);
+
+        RatingDistributionDTO c3 = ratingService.findDistribution("C3");
+        assertEquals(2, c3.getTotal());
+        assertEquals(4.5, c3.getAverage());
+        assertEquals(5, c3.getCounts().size());
+        assertEquals(0L, c3.getCounts().get(Score.ONE_STAR));
+
+        List<RatingDistributionDTO> batch = ratingService.findDistributions(List.of("C3", "C1", "C9", "C3"));
+        assertEquals(List.of("C3", "C1", "C9"), batch.stream().map(RatingDistributionDTO::getMovieId).toList());
+        assertEquals(1L, batch.get(1).getCounts().get(Score.THREE_STARS));
+        assertEquals(0, batch.get(2).getTotal());
+    }
+
+    @Test
+    @DisplayName("Should rebuild aggregates from existing ratings")
+    void rebuildAggregates_ShouldCountExistingRatings(){
+        ratingRepository.saveAll(ratingList);
+
+        assertEquals(3, ratingService.rebuildAggregates());
+
+        MovieRatingAggregate c2 = mongoTemplate.findById("C2", MovieRatingAggregate.class);
+        assertNotNull(c2);
+        assertEquals(1, c2.getCount());
+        assertEquals(4.0, c2.getAverage());
+    }
+
+    @Test
+    @DisplayName("Should bump the revision on rebuild and publish 0 for movies left without ratings")
+    void rebuildAggregates_ShouldKeepRevisionAndEmptyStaleAggregates(){
+        ratingService.createRating(List.of(rating1));
+        ratingRepository.deleteAll();
+        ratingRepository.saveAll(List.of(rating3));
+        long c1Revision = mongoTemplate.findById("C1", MovieRatingAggregate.class).getRevision();
+
+        assertEquals(1, ratingService.rebuildAggregates());
+
+        MovieRatingAggregate c1 = mongoTemplate.findById("C1", MovieRatingAggregate.class);
+        assertNotNull(c1);
+        assertEquals(0, c1.getCount());
+        assertEquals(0.0, c1.getAverage());
+        assertTrue(c1.isPublishPending());
+        assertEquals(c1Revision + 1, c1.getRevision());
+        MovieRatingAggregate c3 = mongoTemplate.findById("C3", MovieRatingAggregate.class);
+        assertEquals(1, c3.getCount());
+        assertTrue(c3.getRevision() > 0);
+    }
+
 }
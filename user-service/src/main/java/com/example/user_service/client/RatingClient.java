@@ -1,14 +1,14 @@
 package com.example.user_service.client;
 
 
+import com.example.user_service.dtos.RatingPageDTO;
 import com.example.user_service.dtos.RatingUserDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-
-import java.util.List;
+import org.springframework.web.bind.annotation.RequestParam;
 
 @FeignClient(name = "rating-service",
         url = "http://localhost:8082/rating")
@@ -17,6 +17,9 @@ public interface RatingClient {
     @PostMapping("/addAndCalculateAverage")
     void addAndCalculateAverage(@RequestBody RatingUserDTO ratingUserDTO);
 
+    //Paginado por cursor: after = nextCursor de la página anterior (null = primera página)
     @GetMapping("/byMovie/{movieId}")
-    List<RatingUserDTO> getRatingsByMovie(@PathVariable String movieId);
+    RatingPageDTO getRatingsByMovie(@PathVariable String movieId,
+                                    @RequestParam(required = false) String after,
+                                    @RequestParam(required = false) Integer limit);
 }
\ No newline at end of file
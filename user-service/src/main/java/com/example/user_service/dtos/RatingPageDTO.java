@@ -0,0 +1,30 @@
+package com.example.user_service.dtos;
+
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class RatingPageDTO {
+    private List<RatingUserDTO> content;
+    //Valor a enviar como after= para pedir la página siguiente (null si no hay más)
+    private String nextCursor;
+
+    public List<RatingUserDTO> getContent() {
+        return content;
+    }
+
+    public void setContent(List<RatingUserDTO> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+}
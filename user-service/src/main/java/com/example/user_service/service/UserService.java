@@ -42,7 +42,8 @@ public class UserService {
     }
 
     //Get all users:
-    @Cacheable(value = "allUsers")
+    //sync = true: cuando vence, una sola carga de MongoDB por réplica y por clave (ver SingleFlightCache)
+    @Cacheable(value = "allUsers", sync = true)
     public List<User> findAll(){
     return userRepository.findAll();
     }